@@ -0,0 +1,185 @@
+package com.collectionlogplus;
+
+import net.runelite.api.FontTypeFace;
+import net.runelite.api.ItemComposition;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.widgets.Widget;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Random;
+
+/*
+ * Synthetic logs and stand-ins for the client objects the benchmarks need.
+ * Everything is seeded so runs at the same size are comparable.
+ */
+final class BenchmarkData {
+    private static final String[] MATERIALS = {
+            "Bronze", "Iron", "Steel", "Black", "Mithril", "Adamant", "Rune", "Dragon", "Crystal", "Ancient"
+    };
+    private static final String[] ITEMS = {
+            "dagger", "scimitar", "platebody", "full helm", "kiteshield", "arrowtips", "pickaxe",
+            "battleaxe", "2h sword", "dart tips", "bones", "bar", "ore", "chainbody", "med helm"
+    };
+    private static final String[] SUFFIXES = {
+            "", "", "", " (p)", " (p++)", " (ornament kit)",
+            // long enough to wrap onto a second line
+            " of the ancient guardians, recovered from the ruins of the lost city beneath the desert"
+    };
+
+    // Glyph widths for the stub font, roughly those of the plain 12 font
+    private static final int NARROW_WIDTH = 3;
+    private static final int WIDE_WIDTH = 7;
+    private static final int DEFAULT_WIDTH = 5;
+
+    private BenchmarkData() {
+    }
+
+    static String itemName(Random random) {
+        return MATERIALS[random.nextInt(MATERIALS.length)] + " "
+                + ITEMS[random.nextInt(ITEMS.length)]
+                + SUFFIXES[random.nextInt(SUFFIXES.length)];
+    }
+
+    // Unlocks spread over the surface, one a minute apart
+    static LogStore logStore(int entries) {
+        Random random = new Random(42);
+        LogStore store = new LogStore();
+        long timestamp = 1_600_000_000_000L;
+        for (int itemId = 0; itemId < entries; itemId++) {
+            WorldPoint location = new WorldPoint(
+                    1000 + random.nextInt(2900),
+                    2500 + random.nextInt(1500),
+                    random.nextInt(8) == 0 ? 1 : 0
+            );
+            store.add(itemId, itemName(random), timestamp, location);
+            timestamp += 60_000;
+        }
+        return store;
+    }
+
+    static FontTypeFace font() {
+        return new FontTypeFace() {
+            @Override
+            public int getTextWidth(String text) {
+                int width = 0;
+                for (int i = 0; i < text.length(); i++) {
+                    char c = text.charAt(i);
+                    if (c == ' ' || c == 'i' || c == 'l' || c == '(' || c == ')') {
+                        width += NARROW_WIDTH;
+                    } else if (c == 'm' || c == 'w' || Character.isUpperCase(c)) {
+                        width += WIDE_WIDTH;
+                    } else {
+                        width += DEFAULT_WIDTH;
+                    }
+                }
+                return width;
+            }
+
+            @Override
+            public int getBaseline() {
+                return 12;
+            }
+        };
+    }
+
+    /*
+     * Widget that accepts every call. Only the size, scroll position and font are real,
+     * created children are fakes of the same size, so the list view does all of its work
+     * without anything being drawn.
+     */
+    static Widget widget(int width, int height, FontTypeFace font) {
+        return (Widget) Proxy.newProxyInstance(
+                Widget.class.getClassLoader(),
+                new Class<?>[]{Widget.class},
+                new FakeWidget(width, height, font)
+        );
+    }
+
+    // Item definition with only the id, name and note links filled in, never a placeholder
+    static ItemComposition itemComposition(int itemId, String name, int note, int linkedNoteId) {
+        return itemComposition(itemId, name, note, linkedNoteId, -1);
+    }
+
+    static ItemComposition itemComposition(int itemId, String name, int note, int linkedNoteId, int placeholderTemplateId) {
+        return (ItemComposition) Proxy.newProxyInstance(
+                ItemComposition.class.getClassLoader(),
+                new Class<?>[]{ItemComposition.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getId":
+                            return itemId;
+                        case "getName":
+                            return name;
+                        case "getNote":
+                            return note;
+                        case "getLinkedNoteId":
+                            return linkedNoteId;
+                        case "getPlaceholderTemplateId":
+                            return placeholderTemplateId;
+                        case "hashCode":
+                            return itemId;
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "FakeItemComposition " + itemId;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+        );
+    }
+
+    private static final class FakeWidget implements InvocationHandler {
+        private final int width;
+        private final int height;
+        private final FontTypeFace font;
+        private int scrollY = 0;
+
+        private FakeWidget(int width, int height, FontTypeFace font) {
+            this.width = width;
+            this.height = height;
+            this.font = font;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "getWidth":
+                    return width;
+                case "getHeight":
+                    return height;
+                case "getFont":
+                    return font;
+                case "getScrollY":
+                    return scrollY;
+                case "setScrollY":
+                    scrollY = (Integer) args[0];
+                    break;
+                case "createChild":
+                    return widget(width, height, font);
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "FakeWidget";
+            }
+            Class<?> returnType = method.getReturnType();
+            if (returnType == Widget.class) {
+                // Setters return the widget for chaining
+                return proxy;
+            }
+            if (returnType == boolean.class) {
+                return false;
+            }
+            if (returnType == int.class) {
+                return 0;
+            }
+            if (returnType.isPrimitive() && returnType != void.class) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            return null;
+        }
+    }
+}
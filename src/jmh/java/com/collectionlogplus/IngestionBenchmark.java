@@ -0,0 +1,132 @@
+package com.collectionlogplus;
+
+import net.runelite.api.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Item events against logs of different sizes.
+ * Inventory churn: every event moves one slot to a different item, like picking up,
+ * dropping or using items. Compares the old full rescan against the slot diff.
+ * NPC loot: every event is a drop of a few stacks, checked like the loot handler does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IngestionBenchmark {
+    private static final int INVENTORY_SIZE = 28;
+    private static final int EVENTS = 4096;
+    private static final int MAX_DROP_SIZE = 6;
+
+    @Param({"1000", "10000", "50000"})
+    public int entries;
+
+    private Item[][] events;
+    private int[][] drops;
+    private LogStore logStore;
+    private InventorySnapshot inventorySnapshot;
+    private int event;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        // Most of the pool has already been logged
+        int itemPool = entries + entries / 9;
+        events = new Item[EVENTS][];
+        Item[] inventory = new Item[INVENTORY_SIZE];
+        for (int slot = 0; slot < INVENTORY_SIZE; slot++) {
+            inventory[slot] = new Item(random.nextInt(itemPool), 1);
+        }
+        for (int i = 0; i < EVENTS; i++) {
+            inventory = Arrays.copyOf(inventory, INVENTORY_SIZE);
+            int slot = random.nextInt(INVENTORY_SIZE);
+            inventory[slot] = random.nextInt(4) == 0
+                    ? new Item(-1, 0)
+                    : new Item(random.nextInt(itemPool), 1);
+            events[i] = inventory;
+        }
+        drops = new int[EVENTS][];
+        for (int i = 0; i < EVENTS; i++) {
+            drops[i] = new int[1 + random.nextInt(MAX_DROP_SIZE)];
+            for (int stack = 0; stack < drops[i].length; stack++) {
+                drops[i][stack] = random.nextInt(itemPool);
+            }
+        }
+
+        logStore = new LogStore();
+        for (int itemId = 0; itemId < itemPool; itemId++) {
+            if (random.nextInt(10) != 0) {
+                logStore.add(itemId, "Item " + itemId, itemId, null);
+            }
+        }
+        inventorySnapshot = new InventorySnapshot();
+    }
+
+    @Benchmark
+    public void fullRescan(Blackhole blackhole) {
+        Item[] items = nextEvent();
+        Set<Integer> currentInventory = new HashSet<>();
+        Arrays.stream(items)
+                .forEach(item -> currentInventory.add(item.getId()));
+        for (int itemId : currentInventory) {
+            if (itemId == -1) {
+                continue;
+            }
+            // stands in for the item composition lookup done for every id
+            blackhole.consume(itemId);
+            blackhole.consume(logStore.contains(itemId));
+        }
+    }
+
+    @Benchmark
+    public void slotDiff(Blackhole blackhole) {
+        Item[] items = nextEvent();
+        int changedSlots = inventorySnapshot.update(items);
+        for (int i = 0; i < changedSlots; i++) {
+            int itemId = inventorySnapshot.changedItemId(i);
+            if (logStore.contains(itemId)) {
+                continue;
+            }
+            blackhole.consume(itemId);
+        }
+    }
+
+    @Benchmark
+    public void npcLoot(Blackhole blackhole) {
+        int[] drop = drops[event];
+        event = (event + 1) % EVENTS;
+        for (int itemId : drop) {
+            // stands in for the item composition lookup done for every stack
+            blackhole.consume(itemId);
+            if (!logStore.contains(itemId)) {
+                blackhole.consume(itemId);
+            }
+        }
+    }
+
+    private Item[] nextEvent() {
+        Item[] items = events[event];
+        event = (event + 1) % EVENTS;
+        return items;
+    }
+}
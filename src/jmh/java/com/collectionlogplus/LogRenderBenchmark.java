@@ -0,0 +1,138 @@
+package com.collectionlogplus;
+
+import net.runelite.api.FontTypeFace;
+import net.runelite.api.widgets.Widget;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Laying out and binding the item log rows against fake widgets.
+ * The cold benchmarks start from an empty text layout cache like the first time the log is
+ * opened, the warm ones reuse it like re-opening the log or scrolling it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogRenderBenchmark {
+    // Size of the skill guide entries container
+    private static final int CONTAINER_WIDTH = 470;
+    private static final int CONTAINER_HEIGHT = 260;
+    // Wrap width of a row with an item sprite
+    private static final int TEXT_WIDTH = CONTAINER_WIDTH - 48;
+    private static final int SCROLL_STEP = 120;
+
+    @Param({"1000", "10000", "50000"})
+    public int entries;
+
+    private FontTypeFace font;
+    private LogStore logStore;
+    private LogQuery logQuery;
+    private String[][] rowTexts;
+    private TextLayout warmLayout;
+    private LogListView warmListView;
+    private LogListView scrolledListView;
+    private Widget scrolledContainer;
+    private int scrollHeight;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        font = BenchmarkData.font();
+        logStore = BenchmarkData.logStore(entries);
+        logQuery = new LogQuery();
+        rowTexts = new String[entries][];
+        for (int row = 0; row < entries; row++) {
+            rowTexts[row] = new String[]{logStore.name(row)};
+        }
+
+        warmLayout = new TextLayout();
+        warmLayout.setContainer(font, CONTAINER_WIDTH);
+        buildTextLines(warmLayout, null);
+
+        warmListView = new LogListView();
+        warmListView.render(BenchmarkData.widget(CONTAINER_WIDTH, CONTAINER_HEIGHT, font), rows());
+        scrolledListView = new LogListView();
+        scrolledContainer = BenchmarkData.widget(CONTAINER_WIDTH, CONTAINER_HEIGHT, font);
+        scrollHeight = scrolledListView.render(scrolledContainer, rows());
+    }
+
+    @Benchmark
+    public void buildTextLinesCold(Blackhole blackhole) {
+        TextLayout textLayout = new TextLayout();
+        textLayout.setContainer(font, CONTAINER_WIDTH);
+        buildTextLines(textLayout, blackhole);
+    }
+
+    @Benchmark
+    public void buildTextLinesWarm(Blackhole blackhole) {
+        buildTextLines(warmLayout, blackhole);
+    }
+
+    @Benchmark
+    public int renderItemLogCold() {
+        return new LogListView().render(BenchmarkData.widget(CONTAINER_WIDTH, CONTAINER_HEIGHT, font), rows());
+    }
+
+    @Benchmark
+    public int renderItemLogWarm() {
+        return warmListView.render(BenchmarkData.widget(CONTAINER_WIDTH, CONTAINER_HEIGHT, font), rows());
+    }
+
+    // One frame of scrolling, the pool is rebound to the rows now in view
+    @Benchmark
+    public void scrollItemLog() {
+        int scrollY = scrolledContainer.getScrollY() + SCROLL_STEP;
+        scrolledContainer.setScrollY(scrollY >= scrollHeight ? 0 : scrollY);
+        scrolledListView.onScroll();
+    }
+
+    private void buildTextLines(TextLayout textLayout, Blackhole blackhole) {
+        for (String[] texts : rowTexts) {
+            Object lines = textLayout.buildLogTextLines(texts, TEXT_WIDTH);
+            if (blackhole != null) {
+                blackhole.consume(lines);
+            }
+        }
+    }
+
+    // Same rows as the plugin's item log
+    private LogListView.Rows rows() {
+        return new LogListView.Rows() {
+            @Override
+            public int size() {
+                return logQuery.size(logStore);
+            }
+
+            @Override
+            public int itemId(int index) {
+                return logStore.itemId(logQuery.row(logStore, index));
+            }
+
+            @Override
+            public String[] texts(int index) {
+                return new String[]{logStore.name(logQuery.row(logStore, index))};
+            }
+
+            @Override
+            public Object layoutKey() {
+                return Arrays.asList(logStore, logStore.version(), logQuery.version());
+            }
+        };
+    }
+}
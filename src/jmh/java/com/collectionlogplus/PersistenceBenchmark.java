@@ -0,0 +1,115 @@
+package com.collectionlogplus;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/*
+ * Reading a profile's logs when logging in and writing the snapshot the journal gets folded into.
+ * The journal and legacy benchmarks read the same entries back from a journal alone, like a
+ * profile that has never been compacted, and from the JSON snapshot older versions wrote.
+ * File sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBenchmark {
+    @Param({"1000", "10000", "50000"})
+    public int entries;
+
+    private LogPersistence logPersistence;
+    private LogStore logStore;
+    private Path root;
+    private Path snapshotFolder;
+    private Path journalFolder;
+    private Path legacyFolder;
+    private Path writeFolder;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Gson gson = new Gson();
+        logPersistence = new LogPersistence(gson, new PluginMetrics());
+        logStore = BenchmarkData.logStore(entries);
+        root = Files.createTempDirectory("collection-log-plus-jmh");
+
+        snapshotFolder = Files.createDirectory(root.resolve("snapshot"));
+        logPersistence.writeSnapshot(snapshotFolder, logStore);
+
+        // Written directly, appending through the writer would compact it into a snapshot
+        journalFolder = Files.createDirectory(root.resolve("journal"));
+        try (BufferedWriter writer = Files.newBufferedWriter(journalFolder.resolve(LogPersistence.JOURNAL_FILE))) {
+            for (int row = 0; row < logStore.size(); row++) {
+                writer.write(gson.toJson(logStore.entry(row)));
+                writer.newLine();
+            }
+        }
+
+        legacyFolder = Files.createDirectory(root.resolve("legacy"));
+        try (BufferedWriter writer = Files.newBufferedWriter(legacyFolder.resolve(LogPersistence.LEGACY_SNAPSHOT_FILE));
+             JsonWriter jsonWriter = new JsonWriter(writer)) {
+            jsonWriter.beginObject();
+            for (int row = 0; row < logStore.size(); row++) {
+                jsonWriter.name(Integer.toString(logStore.itemId(row)));
+                gson.toJson(logStore.entry(row), LogEntry.class, jsonWriter);
+            }
+            jsonWriter.endObject();
+        }
+
+        writeFolder = Files.createDirectory(root.resolve("write"));
+        System.out.printf("%nSnapshot %d bytes, journal %d bytes, legacy snapshot %d bytes%n",
+                Files.size(snapshotFolder.resolve(LogPersistence.SNAPSHOT_FILE)),
+                Files.size(journalFolder.resolve(LogPersistence.JOURNAL_FILE)),
+                Files.size(legacyFolder.resolve(LogPersistence.LEGACY_SNAPSHOT_FILE)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public LogStore loadSnapshot() {
+        return logPersistence.read(snapshotFolder);
+    }
+
+    @Benchmark
+    public LogStore loadJournal() {
+        return logPersistence.read(journalFolder);
+    }
+
+    @Benchmark
+    public LogStore loadLegacySnapshot() {
+        return logPersistence.read(legacyFolder);
+    }
+
+    @Benchmark
+    public Path saveSnapshot() throws IOException {
+        logPersistence.writeSnapshot(writeFolder, logStore);
+        return writeFolder;
+    }
+}
@@ -0,0 +1,285 @@
+package com.collectionlogplus;
+
+import net.runelite.api.Item;
+import net.runelite.api.ItemComposition;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.game.ItemStack;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+/*
+ * Replays a recording of item events (see EventRecording) through LogIngestion without a client,
+ * as fast as it will go, and reports throughput, allocation and the store it ends up with.
+ *
+ *   ./gradlew replay -Precording=<file.clpr> [-Ppasses=20]
+ *
+ * Without a recording a synthetic one is generated. The digests only depend on what the unlock
+ * logic decided, so they should match between runs of the same recording before and after a
+ * change to it.
+ */
+public final class ReplayHarness {
+    private static final int WARMUP_PASSES = 5;
+    private static final int DEFAULT_PASSES = 20;
+    private static final int SYNTHETIC_EVENTS = 20_000;
+    private static final int SYNTHETIC_ITEMS = 5_000;
+    private static final int INVENTORY_SIZE = 28;
+    private static final long TICK_MILLIS = 600;
+
+    private final Map<Integer, ItemComposition> compositions = new HashMap<>();
+    private final List<RecordedEvent> events = new ArrayList<>();
+    private int itemCount = 0;
+
+    // Time and place of the last event replayed, what the plugin would commit the tick's unlocks with
+    private long eventTimestamp;
+    private int eventLocation;
+
+    public static void main(String[] args) throws IOException {
+        byte[] recording = args.length > 0 && !args[0].isEmpty()
+                ? Files.readAllBytes(Paths.get(args[0]))
+                : syntheticRecording();
+        int passes = args.length > 1 ? Math.max(1, Integer.parseInt(args[1])) : DEFAULT_PASSES;
+
+        ReplayHarness harness = new ReplayHarness();
+        EventRecording.read(new ByteArrayInputStream(recording), harness.new Decoder());
+        System.out.printf("Recording: %,d bytes, %,d events, %,d item slots and stacks, %,d item definitions%n",
+                recording.length, harness.events.size(), harness.itemCount, harness.compositions.size());
+
+        for (int pass = 0; pass < WARMUP_PASSES; pass++) {
+            harness.replay();
+        }
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long[] nanos = new long[passes];
+        long allocated = 0;
+        Result result = null;
+        for (int pass = 0; pass < passes; pass++) {
+            long allocatedBefore = allocatedBytes(threads);
+            long start = System.nanoTime();
+            result = harness.replay();
+            nanos[pass] = System.nanoTime() - start;
+            allocated += allocatedBytes(threads) - allocatedBefore;
+        }
+        Arrays.sort(nanos);
+        long median = nanos[passes / 2];
+
+        System.out.printf("Replay: %d passes, median %.3fms, fastest %.3fms%n",
+                passes, median / 1e6, nanos[0] / 1e6);
+        System.out.printf("Throughput: %,.0f events/s, %,.0f items/s%n",
+                harness.events.size() * 1e9 / median, harness.itemCount * 1e9 / median);
+        if (allocated >= 0) {
+            System.out.printf("Allocated: %,.1f bytes per event%n",
+                    allocated / (double) passes / Math.max(1, harness.events.size()));
+        }
+        System.out.printf("Store: %,d items, digest %08x%n", result.store.size(), result.storeDigest());
+        System.out.printf("History: digest %08x%n", result.historyDigest());
+    }
+
+    /*
+     * Same path as the plugin: unlocks go to an UnlockBatch and are committed on the game tick.
+     * Recordings don't have ticks, events in the same 600ms window are taken to be in one tick.
+     */
+    private Result replay() {
+        Result result = new Result();
+        UnlockBatch unlockBatch = new UnlockBatch();
+        LogIngestion ingestion = new LogIngestion(new ItemMetadataCache(new StandInItemLookup()), unlockBatch::add);
+        long tick = Long.MIN_VALUE;
+        for (RecordedEvent event : events) {
+            long eventTick = Math.floorDiv(event.timestamp, TICK_MILLIS);
+            if (eventTick != tick && tick != Long.MIN_VALUE) {
+                tick(ingestion, unlockBatch, result);
+            }
+            tick = eventTick;
+            eventTimestamp = event.timestamp;
+            eventLocation = event.location;
+            if (event.inventory != null) {
+                ingestion.onContainerChanged(event.source, event.inventory, result.store, result.history, event.timestamp);
+            } else {
+                ingestion.onLoot(event.source, event.loot, result.store, result.history, event.timestamp);
+            }
+        }
+        tick(ingestion, unlockBatch, result);
+        return result;
+    }
+
+    // What the plugin's GameTick does: tick the ingestion, then commit the unlocks found since the last one
+    private void tick(LogIngestion ingestion, UnlockBatch unlockBatch, Result result) {
+        ingestion.onTick(result.store, result.history);
+        for (int i = 0; i < unlockBatch.size(); i++) {
+            result.store.addPacked(unlockBatch.itemId(i), unlockBatch.name(i), eventTimestamp, eventLocation);
+        }
+        unlockBatch.clear();
+    }
+
+    private static long allocatedBytes(ThreadMXBean threads) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    // Slots churn one at a time with the odd NPC drop, some items noted, the player wandering about
+    private static byte[] syntheticRecording() {
+        Random random = new Random(42);
+        Map<Integer, ItemComposition> items = new HashMap<>();
+        for (int itemId = 0; itemId < SYNTHETIC_ITEMS; itemId++) {
+            boolean noted = itemId % 10 == 1;
+            items.put(itemId, BenchmarkData.itemComposition(
+                    itemId,
+                    BenchmarkData.itemName(random),
+                    noted ? LogIngestion.BANK_NOTE_ITEM_ID : -1,
+                    noted ? itemId - 1 : itemId + 1
+            ));
+        }
+        EventRecording.Encoder encoder = new EventRecording.Encoder(new LogIngestion.ItemLookup() {
+            @Override
+            public ItemComposition getItemComposition(int itemId) {
+                return items.get(itemId);
+            }
+
+            @Override
+            public int canonicalize(int itemId) {
+                return itemId;
+            }
+        });
+
+        int[] inventory = new int[INVENTORY_SIZE];
+        int[] quantities = new int[INVENTORY_SIZE];
+        Arrays.fill(inventory, -1);
+        long timestamp = 1_600_000_000_000L;
+        int x = 3200;
+        int y = 3200;
+        for (int event = 0; event < SYNTHETIC_EVENTS; event++) {
+            timestamp += 600;
+            x += random.nextInt(3) - 1;
+            y += random.nextInt(3) - 1;
+            int location = LogStore.packLocation(new WorldPoint(x, y, 0));
+            if (random.nextInt(7) == 0) {
+                int stacks = 1 + random.nextInt(6);
+                int[] itemIds = new int[stacks];
+                int[] stackQuantities = new int[stacks];
+                for (int stack = 0; stack < stacks; stack++) {
+                    itemIds[stack] = random.nextInt(SYNTHETIC_ITEMS);
+                    stackQuantities[stack] = 1 + random.nextInt(100);
+                }
+                encoder.npcLoot(timestamp, random.nextInt(1000), location, itemIds, stackQuantities);
+            } else {
+                int slot = random.nextInt(INVENTORY_SIZE);
+                boolean empty = random.nextInt(4) == 0;
+                inventory[slot] = empty ? -1 : random.nextInt(SYNTHETIC_ITEMS);
+                quantities[slot] = empty ? 0 : 1 + random.nextInt(10);
+                encoder.inventory(timestamp, 93, location, inventory.clone(), quantities.clone());
+            }
+        }
+        return encoder.drain();
+    }
+
+    private final class Decoder implements EventRecording.Listener {
+        @Override
+        public void onItem(int itemId, int note, int linkedNoteId, int placeholderTemplateId, String name) {
+            compositions.put(itemId, BenchmarkData.itemComposition(itemId, name, note, linkedNoteId, placeholderTemplateId));
+        }
+
+        @Override
+        public void onInventory(long timestamp, int containerId, int location, int[] itemIds, int[] quantities) {
+            Item[] items = new Item[itemIds.length];
+            for (int slot = 0; slot < items.length; slot++) {
+                items[slot] = new Item(itemIds[slot], quantities[slot]);
+            }
+            // Recordings from before other containers were read only have the inventory
+            AcquisitionSource source = AcquisitionSource.forContainer(containerId);
+            events.add(new RecordedEvent(timestamp, location, source != null ? source : AcquisitionSource.INVENTORY, items, null));
+            itemCount += items.length;
+        }
+
+        @Override
+        public void onNpcLoot(long timestamp, int npcId, int location, int[] itemIds, int[] quantities) {
+            addLoot(timestamp, AcquisitionSource.NPC_LOOT, location, itemIds, quantities);
+        }
+
+        @Override
+        public void onLoot(long timestamp, int lootType, int location, int[] itemIds, int[] quantities) {
+            addLoot(timestamp, AcquisitionSource.LOOT, location, itemIds, quantities);
+        }
+
+        private void addLoot(long timestamp, AcquisitionSource source, int location, int[] itemIds, int[] quantities) {
+            List<ItemStack> stacks = new ArrayList<>(itemIds.length);
+            for (int stack = 0; stack < itemIds.length; stack++) {
+                stacks.add(new ItemStack(itemIds[stack], quantities[stack]));
+            }
+            events.add(new RecordedEvent(timestamp, location, source, null, stacks));
+            itemCount += stacks.size();
+        }
+    }
+
+    // Definitions from the recording, like ItemManager would give
+    private final class StandInItemLookup implements LogIngestion.ItemLookup {
+        @Override
+        public ItemComposition getItemComposition(int itemId) {
+            ItemComposition itemComposition = compositions.get(itemId);
+            if (itemComposition == null) {
+                throw new IllegalStateException("Recording has no definition for item " + itemId);
+            }
+            return itemComposition;
+        }
+
+        @Override
+        public int canonicalize(int itemId) {
+            ItemComposition itemComposition = getItemComposition(itemId);
+            return itemComposition.getNote() != -1 ? itemComposition.getLinkedNoteId() : itemId;
+        }
+    }
+
+    private static final class RecordedEvent {
+        private final long timestamp;
+        private final int location;
+        private final AcquisitionSource source;
+        // One of these is set
+        private final Item[] inventory;
+        private final List<ItemStack> loot;
+
+        private RecordedEvent(long timestamp, int location, AcquisitionSource source, Item[] inventory, List<ItemStack> loot) {
+            this.timestamp = timestamp;
+            this.location = location;
+            this.source = source;
+            this.inventory = inventory;
+            this.loot = loot;
+        }
+    }
+
+    private static final class Result {
+        private final LogStore store = new LogStore();
+        private final AcquisitionHistory history = new AcquisitionHistory();
+
+        private long storeDigest() {
+            CRC32 crc = new CRC32();
+            ByteBuffer row = ByteBuffer.allocate(16);
+            for (int position = 0; position < store.size(); position++) {
+                int storeRow = store.rowByTime(position);
+                row.clear();
+                row.putInt(store.itemId(storeRow))
+                        .putLong(store.timestamp(storeRow))
+                        .putInt(store.location(storeRow));
+                crc.update(row.array());
+            }
+            return crc.getValue();
+        }
+
+        private long historyDigest() throws IOException {
+            CRC32 crc = new CRC32();
+            crc.update(history.toBytes());
+            return crc.getValue();
+        }
+    }
+}
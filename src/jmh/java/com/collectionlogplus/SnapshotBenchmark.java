@@ -0,0 +1,96 @@
+package com.collectionlogplus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * One thread changing a store the way the client thread does while others read snapshots of it.
+ * The writer mostly appends, sometimes moves an item to an earlier time or sets a name, and hands
+ * out a snapshot every few changes. Readers walk the latest snapshot in time order and fail the
+ * run if it isn't consistent, so this doubles as a stress test of the copy on write columns.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+    private static final int CHANGES_PER_SNAPSHOT = 64;
+
+    @Param({"1000", "10000", "50000"})
+    public int entries;
+
+    private final Random random = new Random(42);
+    private LogStore store;
+    private long timestamp;
+    private int changes;
+    private volatile LogStore.Snapshot latest;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        store = BenchmarkData.logStore(entries);
+        timestamp = store.timestamp(store.rowByTime(store.size() - 1));
+        latest = store.snapshot();
+    }
+
+    @Benchmark
+    @Group("concurrent")
+    @GroupThreads(1)
+    public int write() {
+        int kind = random.nextInt(16);
+        if (kind == 0) {
+            // An import with an earlier time for something already logged
+            int row = random.nextInt(store.size());
+            store.addEarliest(store.itemId(row), store.name(row), store.timestamp(row) - 1 - random.nextInt(1_000_000), null);
+        } else if (kind == 1) {
+            store.setName(random.nextInt(store.size()), BenchmarkData.itemName(random));
+        } else {
+            // Start over rather than grow without bound
+            if (store.size() >= entries * 2) {
+                setUp();
+            }
+            timestamp += 1 + random.nextInt(60_000);
+            store.add(store.size() + entries * 4, BenchmarkData.itemName(random), timestamp, null);
+        }
+        if (++changes % CHANGES_PER_SNAPSHOT == 0) {
+            latest = store.snapshot();
+        }
+        return store.size();
+    }
+
+    @Benchmark
+    @Group("concurrent")
+    @GroupThreads(3)
+    public long read() {
+        LogStore.Snapshot snapshot = latest;
+        long previous = Long.MIN_VALUE;
+        long sum = 0;
+        for (int position = 0; position < snapshot.size(); position++) {
+            int row = snapshot.rowByTime(position);
+            long rowTimestamp = snapshot.timestamp(row);
+            if (row >= snapshot.size() || rowTimestamp < previous || snapshot.name(row) == null) {
+                throw new IllegalStateException("Inconsistent snapshot at position " + position
+                        + " of version " + snapshot.version());
+            }
+            previous = rowTimestamp;
+            sum += snapshot.itemId(row);
+        }
+        return sum;
+    }
+}
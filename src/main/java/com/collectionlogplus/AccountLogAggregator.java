@@ -0,0 +1,173 @@
+package com.collectionlogplus;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Account wide view of the logs across every profile folder, keeping the first time
+ * each item was obtained on any profile.
+ * Profiles are read in parallel off the client thread and cached until their files change.
+ * The reads run on a few threads of their own rather than a pool the rest of the client uses.
+ */
+@Slf4j
+@Singleton
+class AccountLogAggregator {
+    private static final int READ_THREADS = 2;
+
+    private final LogPersistence logPersistence;
+    // Threads exit when idle, the account log is only rebuilt now and then
+    private final ThreadPoolExecutor readers = new ThreadPoolExecutor(
+            READ_THREADS, READ_THREADS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            new ThreadFactoryBuilder()
+                    .setNameFormat("collection-log-plus-reader-%d")
+                    .setDaemon(true)
+                    .build()
+    );
+    // Folder name -> logs read from it, along with the modification stamp they were read at
+    private final Map<String, ProfileLogs> profiles = new ConcurrentHashMap<>();
+    private MergedLogs merged;
+
+    @Inject
+    AccountLogAggregator(LogPersistence logPersistence) {
+        this.logPersistence = logPersistence;
+        readers.allowCoreThreadTimeOut(true);
+    }
+
+    /*
+     * Completes with the merged store. The live folder's changes are expected to be folded into
+     * the returned store by the caller, so only the other profiles are checked for changes.
+     */
+    CompletableFuture<LogStore> refresh(File logDir, String liveFolder) {
+        return CompletableFuture.supplyAsync(() -> listFolders(logDir), readers)
+                .thenCompose(folders -> merge(folders, liveFolder));
+    }
+
+    void invalidate() {
+        synchronized (this) {
+            merged = null;
+        }
+        profiles.clear();
+    }
+
+    private static File[] listFolders(File logDir) {
+        File[] folders = logDir.listFiles(File::isDirectory);
+        return folders != null ? folders : new File[0];
+    }
+
+    // Nothing blocks on the reads, the profiles are combined on whichever reader finishes last
+    private CompletableFuture<LogStore> merge(File[] folders, String liveFolder) {
+        Map<String, LogPersistence.FolderStamp> stamps = new HashMap<>();
+        for (File folder : folders) {
+            if (!folder.getName().equals(liveFolder)) {
+                stamps.put(folder.getName(), LogPersistence.folderStamp(folder.toPath()));
+            }
+        }
+
+        synchronized (this) {
+            if (merged != null && merged.liveFolder.equals(liveFolder) && merged.otherStamps.equals(stamps)) {
+                return CompletableFuture.completedFuture(merged.store);
+            }
+        }
+
+        List<CompletableFuture<ProfileLogs>> reads = new ArrayList<>();
+        for (File folder : folders) {
+            reads.add(CompletableFuture.supplyAsync(() -> readProfile(folder.toPath()), readers));
+        }
+        return CompletableFuture.allOf(reads.toArray(new CompletableFuture[0]))
+                .thenApply(done -> combine(reads, liveFolder, stamps));
+    }
+
+    private LogStore combine(List<CompletableFuture<ProfileLogs>> reads, String liveFolder, Map<String, LogPersistence.FolderStamp> stamps) {
+        // item id -> profile and row holding the earliest unlock seen so far
+        Map<Integer, long[]> firstObtained = new HashMap<>();
+        List<LogStore> stores = new ArrayList<>();
+        Set<String> seenFolders = new HashSet<>();
+        for (CompletableFuture<ProfileLogs> read : reads) {
+            ProfileLogs profileLogs = read.join();
+            seenFolders.add(profileLogs.folderName);
+            int storeIndex = stores.size();
+            stores.add(profileLogs.store);
+            for (int row = 0; row < profileLogs.store.size(); row++) {
+                long obtainedAt = profileLogs.store.timestamp(row);
+                long[] current = firstObtained.get(profileLogs.store.itemId(row));
+                if (current == null) {
+                    firstObtained.put(profileLogs.store.itemId(row), new long[]{obtainedAt, storeIndex, row});
+                } else if (obtainedAt < current[0]) {
+                    current[0] = obtainedAt;
+                    current[1] = storeIndex;
+                    current[2] = row;
+                }
+            }
+        }
+        // Forget profiles that were deleted
+        profiles.keySet().retainAll(seenFolders);
+
+        List<long[]> ordered = new ArrayList<>(firstObtained.values());
+        ordered.sort(Comparator.comparingLong(first -> first[0]));
+        LogStore store = new LogStore();
+        for (long[] first : ordered) {
+            LogStore source = stores.get((int) first[1]);
+            int row = (int) first[2];
+            store.add(source.itemId(row), source.name(row), source.timestamp(row), source.worldPoint(row));
+        }
+        log.debug("Merged {} profiles into {} account wide entries", reads.size(), store.size());
+
+        synchronized (this) {
+            merged = new MergedLogs(liveFolder, stamps, store);
+        }
+        return store;
+    }
+
+    private ProfileLogs readProfile(Path folder) {
+        String folderName = folder.getFileName().toString();
+        LogPersistence.FolderStamp stamp = LogPersistence.folderStamp(folder);
+        ProfileLogs cached = profiles.get(folderName);
+        if (cached != null && cached.stamp.equals(stamp)) {
+            return cached;
+        }
+        ProfileLogs profileLogs = new ProfileLogs(folderName, stamp, logPersistence.read(folder));
+        profiles.put(folderName, profileLogs);
+        return profileLogs;
+    }
+
+    private static final class ProfileLogs {
+        private final String folderName;
+        private final LogPersistence.FolderStamp stamp;
+        private final LogStore store;
+
+        private ProfileLogs(String folderName, LogPersistence.FolderStamp stamp, LogStore store) {
+            this.folderName = folderName;
+            this.stamp = stamp;
+            this.store = store;
+        }
+    }
+
+    private static final class MergedLogs {
+        private final String liveFolder;
+        private final Map<String, LogPersistence.FolderStamp> otherStamps;
+        private final LogStore store;
+
+        private MergedLogs(String liveFolder, Map<String, LogPersistence.FolderStamp> otherStamps, LogStore store) {
+            this.liveFolder = liveFolder;
+            this.otherStamps = otherStamps;
+            this.store = store;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.collectionlogplus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/*
+ * Every acquisition of every item, kept as per-item totals and rolled up into hourly, daily and
+ * monthly buckets. Each granularity is a fixed size ring so memory stays flat however long the
+ * account is played, "since" queries sum the buckets of the finest ring still covering the date.
+ * Raw events are never kept.
+ * Inventory gains are held until the end of the tick and netted against what left the bank or
+ * equipment in the same tick, so withdrawing or unequipping items isn't counted as obtaining them.
+ * Only touched from the client thread.
+ */
+class AcquisitionHistory {
+    private static final int MAGIC = 0x434C5048;
+    private static final int VERSION = 1;
+    // Loot that hasn't been picked up yet, past this the oldest is assumed to have despawned
+    private static final int MAX_LOOT_CREDITS = 256;
+
+    private enum Granularity {
+        HOUR,
+        DAY,
+        MONTH;
+
+        long bucketOf(long epochMillis, ZoneId zone) {
+            switch (this) {
+                case HOUR:
+                    return Math.floorDiv(epochMillis, 3_600_000L);
+                case DAY:
+                    return Instant.ofEpochMilli(epochMillis).atZone(zone).toLocalDate().toEpochDay();
+                default:
+                    ZonedDateTime dateTime = Instant.ofEpochMilli(epochMillis).atZone(zone);
+                    return dateTime.getYear() * 12L + dateTime.getMonthValue() - 1;
+            }
+        }
+    }
+
+    // Item id -> {times obtained, total quantity}
+    private final Map<Integer, long[]> totals = new HashMap<>();
+    private final Tier[] tiers = {
+            new Tier(Granularity.HOUR, 48),
+            new Tier(Granularity.DAY, 400),
+            new Tier(Granularity.MONTH, 240)
+    };
+    // Item id -> quantity dropped by NPCs that an inventory gain would count a second time
+    private final Map<Integer, Long> lootCredits = new LinkedHashMap<Integer, Long>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Long> eldest) {
+            return size() > MAX_LOOT_CREDITS;
+        }
+    };
+    // Item id -> {quantity, timestamp} gained in the inventory this tick, counted by commitTick
+    private final Map<Integer, long[]> pendingGains = new HashMap<>();
+    // Item id -> quantity that left the bank or equipment this tick
+    private final Map<Integer, Long> transfers = new HashMap<>();
+    private boolean dirty = false;
+    private int version = 0;
+
+    void recordLoot(int itemId, long quantity, long timestamp) {
+        record(itemId, 1, quantity, timestamp);
+        lootCredits.merge(itemId, quantity, Long::sum);
+    }
+
+    void recordInventoryGain(int itemId, long quantity, long timestamp) {
+        long[] gain = pendingGains.computeIfAbsent(itemId, k -> new long[2]);
+        gain[0] += quantity;
+        gain[1] = timestamp;
+    }
+
+    // Quantity moved out of the bank or equipment, an inventory gain of it this tick is not counted
+    void recordTransferOut(int itemId, long quantity) {
+        transfers.merge(itemId, quantity, Long::sum);
+    }
+
+    boolean hasPendingGains() {
+        return !pendingGains.isEmpty();
+    }
+
+    boolean isPendingGain(int itemId) {
+        return pendingGains.containsKey(itemId);
+    }
+
+    // Counts the tick's inventory gains less what was moved in from the bank or equipment
+    void commitTick() {
+        for (Map.Entry<Integer, long[]> gain : pendingGains.entrySet()) {
+            long remaining = gain.getValue()[0] - transfers.getOrDefault(gain.getKey(), 0L);
+            if (remaining > 0) {
+                countInventoryGain(gain.getKey(), remaining, gain.getValue()[1]);
+            }
+        }
+        pendingGains.clear();
+        transfers.clear();
+    }
+
+    // Gains from picking up loot that was already recorded are skipped
+    private void countInventoryGain(int itemId, long quantity, long timestamp) {
+        Long credit = lootCredits.remove(itemId);
+        if (credit != null && credit > quantity) {
+            lootCredits.put(itemId, credit - quantity);
+        }
+        long remaining = credit == null ? quantity : quantity - credit;
+        if (remaining > 0) {
+            record(itemId, 1, remaining, timestamp);
+        }
+    }
+
+    long count(int itemId) {
+        long[] total = totals.get(itemId);
+        return total == null ? 0 : total[0];
+    }
+
+    long quantity(int itemId) {
+        long[] total = totals.get(itemId);
+        return total == null ? 0 : total[1];
+    }
+
+    // Times obtained from the start of the bucket holding the given time, in the finest granularity still covering it
+    long countSince(int itemId, long sinceMillis, long nowMillis) {
+        return since(itemId, sinceMillis, nowMillis, 0);
+    }
+
+    long quantitySince(int itemId, long sinceMillis, long nowMillis) {
+        return since(itemId, sinceMillis, nowMillis, 1);
+    }
+
+    // Changes whenever a count does
+    int version() {
+        return version;
+    }
+
+    boolean isDirty() {
+        return dirty;
+    }
+
+    void clearDirty() {
+        dirty = false;
+    }
+
+    // Adds everything recorded in another history, used for what was recorded while this one loaded
+    void merge(AcquisitionHistory other) {
+        for (Map.Entry<Integer, long[]> entry : other.totals.entrySet()) {
+            long[] total = totals.computeIfAbsent(entry.getKey(), k -> new long[2]);
+            total[0] += entry.getValue()[0];
+            total[1] += entry.getValue()[1];
+        }
+        for (int tier = 0; tier < tiers.length; tier++) {
+            for (Bucket bucket : other.tiers[tier].buckets) {
+                if (bucket == null) {
+                    continue;
+                }
+                for (Map.Entry<Integer, long[]> entry : bucket.items.entrySet()) {
+                    tiers[tier].add(entry.getKey(), entry.getValue()[0], entry.getValue()[1], bucket.number);
+                }
+            }
+        }
+        for (Map.Entry<Integer, Long> credit : other.lootCredits.entrySet()) {
+            lootCredits.merge(credit.getKey(), credit.getValue(), Long::sum);
+        }
+        for (Map.Entry<Integer, long[]> gain : other.pendingGains.entrySet()) {
+            recordInventoryGain(gain.getKey(), gain.getValue()[0], gain.getValue()[1]);
+        }
+        for (Map.Entry<Integer, Long> transfer : other.transfers.entrySet()) {
+            recordTransferOut(transfer.getKey(), transfer.getValue());
+        }
+        dirty |= other.dirty;
+        version++;
+    }
+
+    private void record(int itemId, long count, long quantity, long timestamp) {
+        long[] total = totals.computeIfAbsent(itemId, k -> new long[2]);
+        total[0] += count;
+        total[1] += quantity;
+        ZoneId zone = ZoneId.systemDefault();
+        for (Tier tier : tiers) {
+            tier.add(itemId, count, quantity, tier.granularity.bucketOf(timestamp, zone));
+        }
+        dirty = true;
+        version++;
+    }
+
+    private long since(int itemId, long sinceMillis, long nowMillis, int field) {
+        ZoneId zone = ZoneId.systemDefault();
+        for (Tier tier : tiers) {
+            long sinceBucket = tier.granularity.bucketOf(sinceMillis, zone);
+            long nowBucket = tier.granularity.bucketOf(nowMillis, zone);
+            if (sinceBucket > nowBucket - tier.buckets.length) {
+                return tier.sum(itemId, sinceBucket, field);
+            }
+        }
+        // Older than any ring reaches
+        long[] total = totals.get(itemId);
+        return total == null ? 0 : total[field];
+    }
+
+    /*
+     * Binary form, varints as in BinarySnapshot:
+     *   magic "CLPH" (4 bytes), version (1 byte)
+     *   totals: item count, then per item in id order the id delta, count and quantity
+     *   per granularity: bucket count, then per bucket its zigzag number and items like the totals
+     *   CRC32 of everything before it (4 bytes)
+     */
+    byte[] toBytes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CRC32 crc = new CRC32();
+        DataOutputStream out = new DataOutputStream(new CheckedOutputStream(bytes, crc));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeItems(out, totals);
+        for (Tier tier : tiers) {
+            int bucketCount = 0;
+            for (Bucket bucket : tier.buckets) {
+                if (bucket != null) {
+                    bucketCount++;
+                }
+            }
+            BinarySnapshot.writeVarLong(out, bucketCount);
+            for (Bucket bucket : tier.buckets) {
+                if (bucket != null) {
+                    BinarySnapshot.writeVarLong(out, BinarySnapshot.zigzag(bucket.number));
+                    writeItems(out, bucket.items);
+                }
+            }
+        }
+        out.flush();
+        new DataOutputStream(bytes).writeInt((int) crc.getValue());
+        return bytes.toByteArray();
+    }
+
+    static AcquisitionHistory read(InputStream inputStream) throws IOException {
+        CRC32 crc = new CRC32();
+        DataInputStream in = new DataInputStream(new CheckedInputStream(inputStream, crc));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an acquisition history");
+        }
+        int version = in.readUnsignedByte();
+        if (version > VERSION) {
+            throw new IOException("Acquisition history version " + version + " is newer than this plugin");
+        }
+        AcquisitionHistory history = new AcquisitionHistory();
+        readItems(in, history.totals);
+        for (Tier tier : history.tiers) {
+            long bucketCount = BinarySnapshot.readVarLong(in);
+            for (long i = 0; i < bucketCount; i++) {
+                long number = BinarySnapshot.unzigzag(BinarySnapshot.readVarLong(in));
+                Map<Integer, long[]> items = new HashMap<>();
+                readItems(in, items);
+                for (Map.Entry<Integer, long[]> entry : items.entrySet()) {
+                    tier.add(entry.getKey(), entry.getValue()[0], entry.getValue()[1], number);
+                }
+            }
+        }
+        int expected = (int) crc.getValue();
+        if (new DataInputStream(inputStream).readInt() != expected) {
+            throw new IOException("Acquisition history checksum mismatch");
+        }
+        return history;
+    }
+
+    private static void writeItems(DataOutputStream out, Map<Integer, long[]> items) throws IOException {
+        int[] itemIds = items.keySet().stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(itemIds);
+        BinarySnapshot.writeVarLong(out, itemIds.length);
+        int previousItemId = 0;
+        for (int itemId : itemIds) {
+            long[] counts = items.get(itemId);
+            BinarySnapshot.writeVarLong(out, itemId - previousItemId);
+            BinarySnapshot.writeVarLong(out, counts[0]);
+            BinarySnapshot.writeVarLong(out, counts[1]);
+            previousItemId = itemId;
+        }
+    }
+
+    private static void readItems(DataInputStream in, Map<Integer, long[]> items) throws IOException {
+        long itemCount = BinarySnapshot.readVarLong(in);
+        int itemId = 0;
+        for (long i = 0; i < itemCount; i++) {
+            itemId += (int) BinarySnapshot.readVarLong(in);
+            items.put(itemId, new long[]{BinarySnapshot.readVarLong(in), BinarySnapshot.readVarLong(in)});
+        }
+    }
+
+    // Ring of buckets, the slot for a bucket number is reused once the ring has gone all the way round
+    private static final class Tier {
+        private final Granularity granularity;
+        private final Bucket[] buckets;
+
+        private Tier(Granularity granularity, int size) {
+            this.granularity = granularity;
+            this.buckets = new Bucket[size];
+        }
+
+        private void add(int itemId, long count, long quantity, long number) {
+            int slot = (int) Math.floorMod(number, (long) buckets.length);
+            Bucket bucket = buckets[slot];
+            if (bucket == null || bucket.number < number) {
+                bucket = new Bucket(number);
+                buckets[slot] = bucket;
+            } else if (bucket.number > number) {
+                // Already rolled off the ring
+                return;
+            }
+            long[] counts = bucket.items.computeIfAbsent(itemId, k -> new long[2]);
+            counts[0] += count;
+            counts[1] += quantity;
+        }
+
+        private long sum(int itemId, long sinceBucket, int field) {
+            long sum = 0;
+            for (Bucket bucket : buckets) {
+                if (bucket != null && bucket.number >= sinceBucket) {
+                    long[] counts = bucket.items.get(itemId);
+                    if (counts != null) {
+                        sum += counts[field];
+                    }
+                }
+            }
+            return sum;
+        }
+    }
+
+    private static final class Bucket {
+        private final long number;
+        // Item id -> {times obtained, total quantity}
+        private final Map<Integer, long[]> items = new HashMap<>();
+
+        private Bucket(long number) {
+            this.number = number;
+        }
+    }
+}
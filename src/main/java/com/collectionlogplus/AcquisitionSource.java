@@ -0,0 +1,39 @@
+package com.collectionlogplus;
+
+import net.runelite.api.InventoryID;
+
+/*
+ * Where the log hears about items. Container sources are diffed slot by slot, loot sources are
+ * events listing what was dropped. Each can be turned off in the config.
+ */
+enum AcquisitionSource {
+    INVENTORY(InventoryID.INVENTORY, true),
+    EQUIPMENT(InventoryID.EQUIPMENT, false),
+    // Large, so scanned a window of slots per tick rather than all at once
+    BANK(InventoryID.BANK, false),
+    LOOT(null, false),
+    NPC_LOOT(null, true);
+
+    private final InventoryID container;
+    // Counted in the acquisition history, items moved into the bank or equipped were already counted
+    private final boolean countsAcquisitions;
+
+    AcquisitionSource(InventoryID container, boolean countsAcquisitions) {
+        this.container = container;
+        this.countsAcquisitions = countsAcquisitions;
+    }
+
+    boolean countsAcquisitions() {
+        return countsAcquisitions;
+    }
+
+    // null for containers the log doesn't read
+    static AcquisitionSource forContainer(int containerId) {
+        for (AcquisitionSource source : values()) {
+            if (source.container != null && source.container.getId() == containerId) {
+                return source;
+            }
+        }
+        return null;
+    }
+}
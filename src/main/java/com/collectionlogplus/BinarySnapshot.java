@@ -0,0 +1,164 @@
+package com.collectionlogplus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/*
+ * Binary snapshot of a LogStore (logs.bin).
+ *
+ * Layout, all numbers are unsigned LEB128 varints unless noted:
+ *   magic "CLPB" (4 bytes), version (1 byte), row count
+ *   per row, oldest first:
+ *     item id      zigzag delta from the previous row's
+ *     timestamp    epoch millis, delta from the previous row's
+ *     location     0 when unknown, otherwise plane + 1 followed by the zigzag
+ *                  deltas of x and y from the previous known location
+ *   CRC32 of everything before it (4 bytes, big endian)
+ *
+ * Names are not stored, they are looked up from the item id when the logs are loaded.
+ */
+final class BinarySnapshot {
+    private static final int MAGIC = 0x434C5042;
+    static final int VERSION = 1;
+    // The row count comes from the file, so it isn't trusted for the first allocation
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private BinarySnapshot() {
+    }
+
+    static void write(OutputStream outputStream, LogStore store) throws IOException {
+        CRC32 crc = new CRC32();
+        DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(outputStream), crc));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeVarLong(out, store.size());
+
+        int previousItemId = 0;
+        long previousTimestamp = 0;
+        int previousX = 0;
+        int previousY = 0;
+        for (int position = 0; position < store.size(); position++) {
+            int row = store.rowByTime(position);
+            int itemId = store.itemId(row);
+            writeVarLong(out, zigzag(itemId - previousItemId));
+            previousItemId = itemId;
+
+            // Rows are in time order so the delta is never negative
+            long timestamp = store.timestamp(row);
+            writeVarLong(out, position == 0 ? zigzag(timestamp) : timestamp - previousTimestamp);
+            previousTimestamp = timestamp;
+
+            int location = store.location(row);
+            if (location == LogStore.NO_LOCATION) {
+                out.writeByte(0);
+            } else {
+                int x = location & 0x7FFF;
+                int y = (location >>> 15) & 0x7FFF;
+                out.writeByte(((location >>> 30) & 0x3) + 1);
+                writeVarLong(out, zigzag(x - previousX));
+                writeVarLong(out, zigzag(y - previousY));
+                previousX = x;
+                previousY = y;
+            }
+        }
+        // Not part of the checksum
+        out.flush();
+        DataOutputStream trailer = new DataOutputStream(outputStream);
+        trailer.writeInt((int) crc.getValue());
+        trailer.flush();
+    }
+
+    // Adds the snapshot's rows to the store, an IOException means nothing in the file can be trusted
+    static void read(InputStream inputStream, LogStore store) throws IOException {
+        CRC32 crc = new CRC32();
+        BufferedInputStream buffered = new BufferedInputStream(inputStream);
+        DataInputStream in = new DataInputStream(new CheckedInputStream(buffered, crc));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an item log snapshot");
+        }
+        int version = in.readUnsignedByte();
+        if (version > VERSION) {
+            throw new IOException("Item log snapshot version " + version + " is newer than this plugin");
+        }
+        long rowCount = readVarLong(in);
+        if (rowCount > Integer.MAX_VALUE) {
+            throw new IOException("Item log snapshot is too large");
+        }
+
+        // Decoded in full before anything is added so a damaged file adds nothing
+        int capacity = (int) Math.min(rowCount, INITIAL_CAPACITY);
+        int[] itemIds = new int[capacity];
+        long[] timestamps = new long[capacity];
+        int[] locations = new int[capacity];
+        int itemId = 0;
+        long timestamp = 0;
+        int x = 0;
+        int y = 0;
+        for (int position = 0; position < rowCount; position++) {
+            itemId += (int) unzigzag(readVarLong(in));
+            timestamp = position == 0 ? unzigzag(readVarLong(in)) : timestamp + readVarLong(in);
+            int planeTag = in.readUnsignedByte();
+            int location = LogStore.NO_LOCATION;
+            if (planeTag != 0) {
+                x += (int) unzigzag(readVarLong(in));
+                y += (int) unzigzag(readVarLong(in));
+                location = (x & 0x7FFF) | (y & 0x7FFF) << 15 | ((planeTag - 1) & 0x3) << 30;
+            }
+            if (position == itemIds.length) {
+                int grown = Math.max(16, itemIds.length * 2);
+                itemIds = Arrays.copyOf(itemIds, grown);
+                timestamps = Arrays.copyOf(timestamps, grown);
+                locations = Arrays.copyOf(locations, grown);
+            }
+            itemIds[position] = itemId;
+            timestamps[position] = timestamp;
+            locations[position] = location;
+        }
+
+        int expected = (int) crc.getValue();
+        if (new DataInputStream(buffered).readInt() != expected) {
+            throw new IOException("Item log snapshot checksum mismatch");
+        }
+        for (int position = 0; position < rowCount; position++) {
+            store.addPacked(itemIds[position], null, timestamps[position], locations[position]);
+        }
+    }
+
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new EOFException("Malformed varint in item log snapshot");
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,62 @@
+package com.collectionlogplus;
+
+import java.util.BitSet;
+
+/*
+ * How much of an ItemCatalog a LogStore holds, overall and per category.
+ * Stores only ever append rows, so each update only looks at the rows added since the last one
+ * and every entry costs one lookup however often the counts are read.
+ * Only touched from the client thread.
+ */
+class CatalogProgress {
+    private final ItemCatalog catalog;
+    private final LogStore store;
+    // By catalog index
+    private final BitSet obtained = new BitSet();
+    private final int[] obtainedByCategory = new int[ItemCatalog.Category.values().length];
+    private int obtainedTotal = 0;
+    private int rowsSeen = 0;
+
+    CatalogProgress(ItemCatalog catalog, LogStore store) {
+        this.catalog = catalog;
+        this.store = store;
+    }
+
+    boolean isFor(ItemCatalog catalog, LogStore store) {
+        return this.catalog == catalog && this.store == store;
+    }
+
+    // Counts the rows added to the store since the last update
+    void update() {
+        for (; rowsSeen < store.size(); rowsSeen++) {
+            int index = catalog.indexOf(store.itemId(rowsSeen));
+            if (index != -1 && !obtained.get(index)) {
+                obtained.set(index);
+                obtainedTotal++;
+                obtainedByCategory[catalog.category(index).ordinal()]++;
+            }
+        }
+    }
+
+    ItemCatalog catalog() {
+        return catalog;
+    }
+
+    int obtained() {
+        return obtainedTotal;
+    }
+
+    int obtained(ItemCatalog.Category category) {
+        return obtainedByCategory[category.ordinal()];
+    }
+
+    // Catalog indexes not yet obtained, in catalog order
+    int[] missing() {
+        int[] missing = new int[catalog.size() - obtainedTotal];
+        int next = 0;
+        for (int index = obtained.nextClearBit(0); index < catalog.size(); index = obtained.nextClearBit(index + 1)) {
+            missing[next++] = index;
+        }
+        return missing;
+    }
+}
@@ -4,9 +4,13 @@ import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
 import net.runelite.client.config.ConfigSection;
+import net.runelite.client.config.Range;
+import net.runelite.client.config.Units;
 
-@ConfigGroup("collection-log-plus")
+@ConfigGroup(CollectionLogPlusConfig.GROUP)
 public interface CollectionLogPlusConfig extends Config {
+    String GROUP = "collection-log-plus";
+
     @ConfigSection(
             name = "Examine Log",
             description = "Custom Examine log things.",
@@ -24,6 +28,28 @@ public interface CollectionLogPlusConfig extends Config {
         return true;
     }
 
+    @Range(max = 60)
+    @Units(Units.SECONDS)
+    @ConfigItem(
+            keyName = "popupDelay",
+            name = "Popup Delay",
+            description = "Time to wait after a popup before showing the next, items found in the meantime are queued.",
+            section = logsSection
+    )
+    default int popupDelay() {
+        return 1;
+    }
+
+    @ConfigItem(
+            keyName = "mergePopups",
+            name = "Merge Popups",
+            description = "Show items queued while a popup was up in a single popup, rather than one popup each.",
+            section = logsSection
+    )
+    default boolean mergePopups() {
+        return true;
+    }
+
     @ConfigItem(
             keyName = "enableCustomCollectionLog",
             name = "Custom Collection Log Interface",
@@ -34,4 +60,157 @@ public interface CollectionLogPlusConfig extends Config {
         return true;
     }
 
+    @ConfigItem(
+            keyName = "sortOrder",
+            name = "Sort Order",
+            description = "Order of the items in the log interface, can also be changed by right clicking an item.",
+            section = logsSection
+    )
+    default LogSortOrder sortOrder() {
+        return LogSortOrder.NEWEST;
+    }
+
+    @ConfigItem(
+            keyName = "accountWideLog",
+            name = "Account Wide Log",
+            description = "Show the first time each item was obtained on any of your profiles in the log interface.",
+            section = logsSection
+    )
+    default boolean accountWideLog() {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "trackHistory",
+            name = "Acquisition History",
+            description = "Count every time items are obtained, not just the first, and show the counts in the log interface.",
+            section = logsSection
+    )
+    default boolean trackHistory() {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "showWorldMapUnlocks",
+            name = "Show Unlocks On World Map",
+            description = "Mark the regions items were first obtained in on the world map.",
+            section = logsSection
+    )
+    default boolean showWorldMapUnlocks() {
+        return false;
+    }
+
+    @ConfigSection(
+            name = "Item Sources",
+            description = "Where the log looks for newly obtained items.",
+            position = 2
+    )
+    String sourcesSection = "sources";
+
+    @ConfigItem(
+            keyName = "trackInventory",
+            name = "Inventory",
+            description = "Log items as they appear in your inventory.",
+            section = sourcesSection
+    )
+    default boolean trackInventory() {
+        return true;
+    }
+
+    @ConfigItem(
+            keyName = "trackEquipment",
+            name = "Equipment",
+            description = "Log items as they appear in your worn equipment, anything already worn is logged when this is turned on.",
+            section = sourcesSection
+    )
+    default boolean trackEquipment() {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "trackBank",
+            name = "Bank",
+            description = "Log items in your bank when it is opened, a large bank is looked over a few ticks. Everything already in the bank is logged the first time it is opened with this on.",
+            section = sourcesSection
+    )
+    default boolean trackBank() {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "trackNpcLoot",
+            name = "NPC Drops",
+            description = "Log items dropped for you by NPCs, even if you don't pick them up.",
+            section = sourcesSection
+    )
+    default boolean trackNpcLoot() {
+        return true;
+    }
+
+    @ConfigItem(
+            keyName = "trackLoot",
+            name = "Other Loot",
+            description = "Log loot from chests, minigames, pickpocketing and other events, needs the Loot Tracker plugin.",
+            section = sourcesSection
+    )
+    default boolean trackLoot() {
+        return true;
+    }
+
+    @ConfigSection(
+            name = "Storage",
+            description = "How the logs are saved to disk.",
+            position = 3
+    )
+    String storageSection = "storage";
+
+    @Range(min = 1, max = 300)
+    @Units(Units.SECONDS)
+    @ConfigItem(
+            keyName = "saveInterval",
+            name = "Save Interval",
+            description = "How often new log entries are written to disk, they are always written on logout.",
+            section = storageSection
+    )
+    default int saveInterval() {
+        return 5;
+    }
+
+    @ConfigItem(
+            keyName = "exportFormat",
+            name = "Export Format",
+            description = "Format of the files written by \"Export log\" in the log interface, they are saved to the collection-log-plus/exports folder.",
+            section = storageSection
+    )
+    default LogExportFormat exportFormat() {
+        return LogExportFormat.JSON_LINES;
+    }
+
+    @ConfigSection(
+            name = "Debug",
+            description = "Tools for checking the plugin's performance.",
+            position = 4,
+            closedByDefault = true
+    )
+    String debugSection = "debug";
+
+    @ConfigItem(
+            keyName = "showPerformanceMetrics",
+            name = "Performance Metrics",
+            description = "Record how long the plugin spends handling events and show it in an overlay.",
+            section = debugSection
+    )
+    default boolean showPerformanceMetrics() {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "recordEvents",
+            name = "Record Item Events",
+            description = "Record the container changes and loot the plugin sees to the collection-log-plus/recordings folder, for replaying offline.",
+            section = debugSection
+    )
+    default boolean recordEvents() {
+        return false;
+    }
 }
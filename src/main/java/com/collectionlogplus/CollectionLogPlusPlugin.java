@@ -1,10 +1,5 @@
 package com.collectionlogplus;
 
-import com.google.common.collect.Lists;
-import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
-import com.google.gson.reflect.TypeToken;
-import com.google.gson.stream.JsonReader;
 import com.google.inject.Provides;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.*;
@@ -17,24 +12,34 @@ import net.runelite.client.config.ConfigManager;
 import net.runelite.client.config.RuneScapeProfileType;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.events.ClientShutdown;
+import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.events.NpcLootReceived;
 import net.runelite.client.game.ItemManager;
 import net.runelite.client.game.ItemStack;
+import net.runelite.client.game.chatbox.ChatboxPanelManager;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
+import net.runelite.client.plugins.loottracker.LootReceived;
+import net.runelite.client.ui.overlay.OverlayManager;
 import net.runelite.client.util.Text;
+import net.runelite.http.api.loottracker.LootRecordType;
 
 import static net.runelite.client.RuneLite.RUNELITE_DIR;
 
 
 import javax.inject.Inject;
 import java.io.*;
-import java.lang.reflect.Type;
 import java.nio.file.Files;
-import java.nio.file.Path;
-import java.text.SimpleDateFormat;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 
 
 @Slf4j
@@ -44,8 +49,23 @@ import java.util.List;
 public class CollectionLogPlusPlugin extends Plugin {
     final int COLLECTION_LOG_POPUP_WIDGET = 660;
     final int SKILL_GUIDE_WIDGET = 860;
-    final int BANK_NOTE_ITEM_ID = 799;
+    private static final int PROFILE_CACHE_SIZE = 4;
+    // Tiles around the player for the "Show nearby" filter
+    private static final int NEARBY_RADIUS = 20;
+    private static final String[] LOG_TABS = {"items", "locations", "missing", "progress"};
+    private static final String[] LOG_TAB_NAMES = {"Items", "Locations", "Missing", "Progress"};
+    // About a minute
+    private static final int HISTORY_SAVE_TICKS = 100;
+    // Names looked up per client cycle for rows read from a snapshot
+    private static final int NAME_CHUNK = 500;
+    // Item definitions read per client cycle while building the item catalog
+    private static final int CATALOG_CHUNK = 1000;
+    private static final DateTimeFormatter SINCE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE;
     private final File LOG_DIR = new File(RUNELITE_DIR, "collection-log-plus");
+    private final File EXPORT_DIR = new File(LOG_DIR, "exports");
+    // Relative file names typed in for an import are looked up here
+    private final File IMPORT_DIR = new File(LOG_DIR, "imports");
+    private final File RECORDING_DIR = new File(LOG_DIR, "recordings");
     @Inject
     private Client client;
     @Inject
@@ -57,17 +77,83 @@ public class CollectionLogPlusPlugin extends Plugin {
     @Inject
     private ItemManager itemManager;
     @Inject
-    private Gson gson;
+    private ChatboxPanelManager chatboxPanelManager;
+    @Inject
+    private LogPersistence logPersistence;
+    @Inject
+    private LogExchange logExchange;
+    @Inject
+    private AccountLogAggregator accountLogAggregator;
+    @Inject
+    private LogWorldMapMarkers worldMapMarkers;
+    @Inject
+    private PluginMetrics metrics;
+    @Inject
+    private MetricsOverlay metricsOverlay;
+    @Inject
+    private OverlayManager overlayManager;
+    @Inject
+    private EventRecorder eventRecorder;
     private File playerFolder = null;
-    private Map<Integer, LogEntry> itemLogs = new HashMap<>();
+    private LogStore logStore = new LogStore();
+    private boolean logsLoading = false;
+    // Loaded logs by profile folder so hopping worlds doesn't reload them
+    private final Map<String, LogStore> profileCache = new LinkedHashMap<String, LogStore>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LogStore> eldest) {
+            return size() > PROFILE_CACHE_SIZE;
+        }
+    };
+    // Merged view of every profile, null until it has been built
+    private LogStore accountStore = null;
     private WidgetNode logWidgetNode = null;
     private String openSkillGuideInterfaceSource = "";
     private String selectedTab = "";
+    private final LogListView listView = new LogListView();
+    private final LogIngestion.ItemLookup itemLookup = new LogIngestion.ItemLookup() {
+        @Override
+        public ItemComposition getItemComposition(int itemId) {
+            return itemManager.getItemComposition(itemId);
+        }
+
+        @Override
+        public int canonicalize(int itemId) {
+            return itemManager.canonicalize(itemId);
+        }
+    };
+    private final ItemMetadataCache itemMetadata = new ItemMetadataCache(itemLookup);
+    private final LogIngestion ingestion = new LogIngestion(itemMetadata, this::addLogEntry);
+    // New items seen this tick, committed on the next GameTick
+    private final UnlockBatch unlockBatch = new UnlockBatch();
+    private final PopupScheduler popupScheduler = new PopupScheduler();
+    // The popup interface while one is up
+    private WidgetNode popupNode = null;
+    private final LogQuery logQuery = new LogQuery();
+    // Every acquisition on the current profile, null unless history is tracked
+    private AcquisitionHistory history = null;
+    private boolean historyLoading = false;
+    private int ticksSinceHistorySave = 0;
+    // Start of the day acquisitions are counted from in the log, -1 for none
+    private long historySince = -1;
+    // Obtainable items for the running game revision, null until loaded or built
+    private ItemCatalog itemCatalog = null;
+    private ItemCatalogBuilder catalogBuilder = null;
+    private boolean catalogLoading = false;
+    // Completion of the displayed store, rebuilt when that store changes
+    private CatalogProgress catalogProgress = null;
 
     @Override
     protected void startUp() throws Exception {
         log.info("Collection Log Plus started!");
         LOG_DIR.mkdirs();
+        IMPORT_DIR.mkdirs();
+        logPersistence.start(config.saveInterval());
+        logQuery.setSortOrder(config.sortOrder());
+        metrics.setEnabled(config.showPerformanceMetrics());
+        overlayManager.add(metricsOverlay);
+        if (config.recordEvents()) {
+            startRecording();
+        }
     }
 
     @Subscribe
@@ -75,23 +161,123 @@ public class CollectionLogPlusPlugin extends Plugin {
         switch (gameStateChanged.getGameState()) {
             case LOGGED_IN:
                 loadLogsFromDisk();
+                loadItemCatalog();
                 break;
             case LOGIN_SCREEN:
             case HOPPING: {
+                // Still the profile they were unlocked on
+                commitUnlocks(false);
+                saveHistory();
+                history = null;
+                historyLoading = false;
+                logPersistence.flush();
                 playerFolder = null;
-                itemLogs = new HashMap<>();
+                logStore = new LogStore();
+                logsLoading = false;
+                accountStore = null;
+                ingestion.reset();
+                worldMapMarkers.clear();
+                // Unlocks from the profile being left aren't shown on the next one
+                popupScheduler.clear();
+                popupNode = null;
             }
         }
     }
 
+    // A container turned back on is compared against nothing rather than what it held when turned off
+    private void onSourceToggled(AcquisitionSource source) {
+        clientThread.invoke(() -> ingestion.reset(source));
+    }
+
     @Subscribe
     public void onClientShutdown(ClientShutdown event) {
-        saveLogs();
+        // shutDown() isn't called when the client exits, the last tick's unlocks are still batched
+        commitUnlocks(false);
+        Future<?> historyWrite = saveHistory();
+        if (historyWrite != null) {
+            event.waitFor(historyWrite);
+        }
+        Future<?> pendingWrite = logPersistence.flush();
+        if (pendingWrite != null) {
+            event.waitFor(pendingWrite);
+        }
     }
 
-    public Path getLogFilePath() {
-        File logFile = new File(this.playerFolder, "logs.json");
-        return logFile.toPath();
+    @Subscribe
+    public void onConfigChanged(ConfigChanged event) {
+        if (!CollectionLogPlusConfig.GROUP.equals(event.getGroup())) {
+            return;
+        }
+        switch (event.getKey()) {
+            case "saveInterval":
+                logPersistence.setFlushInterval(config.saveInterval());
+                break;
+            case "sortOrder":
+                clientThread.invoke(() -> {
+                    logQuery.setSortOrder(config.sortOrder());
+                    if (this.logWidgetNode != null) {
+                        renderEntries();
+                    }
+                });
+                break;
+            case "accountWideLog":
+                clientThread.invoke(() -> {
+                    if (config.accountWideLog()) {
+                        refreshAccountLog();
+                    } else {
+                        accountStore = null;
+                        accountLogAggregator.invalidate();
+                    }
+                    updateWorldMapMarkers();
+                    if (this.logWidgetNode != null) {
+                        renderEntries();
+                    }
+                });
+                break;
+            case "enableCollectionLogPopup":
+                if (!config.enableCollectionLogPopup()) {
+                    clientThread.invoke(() -> popupScheduler.clear());
+                }
+                break;
+            case "showWorldMapUnlocks":
+                clientThread.invoke(this::updateWorldMapMarkers);
+                break;
+            case "trackHistory":
+                clientThread.invoke(() -> {
+                    if (config.trackHistory()) {
+                        loadHistory();
+                    } else {
+                        saveHistory();
+                        history = null;
+                        historyLoading = false;
+                    }
+                    if (this.logWidgetNode != null) {
+                        renderEntries();
+                    }
+                });
+                break;
+            case "showPerformanceMetrics":
+                clientThread.invoke(() -> metrics.setEnabled(config.showPerformanceMetrics()));
+                break;
+            case "trackInventory":
+                onSourceToggled(AcquisitionSource.INVENTORY);
+                break;
+            case "trackEquipment":
+                onSourceToggled(AcquisitionSource.EQUIPMENT);
+                break;
+            case "trackBank":
+                onSourceToggled(AcquisitionSource.BANK);
+                break;
+            case "recordEvents":
+                clientThread.invoke(() -> {
+                    if (config.recordEvents()) {
+                        startRecording();
+                    } else {
+                        eventRecorder.stop();
+                    }
+                });
+                break;
+        }
     }
 
     private File getPlayerFolder(String playerDir) {
@@ -104,18 +290,6 @@ public class CollectionLogPlusPlugin extends Plugin {
         return playerFolder;
     }
 
-    public void writeLogsToDisk(String itemLogsJson) {
-        if (this.playerFolder == null) {
-            return;
-        }
-        Path filePath = getLogFilePath();
-        try (BufferedWriter writer = Files.newBufferedWriter(filePath)) {
-            writer.write(itemLogsJson);
-        } catch (IOException e) {
-            log.error("Unable to write item logs to: " + filePath, e);
-        }
-    }
-
     public void loadLogsFromDisk() {
         if (this.playerFolder != null) {
             return;
@@ -124,30 +298,188 @@ public class CollectionLogPlusPlugin extends Plugin {
         String profileKey = configManager.getRSProfileKey();
 
         this.playerFolder = getPlayerFolder(profileKey);
-        log.debug("Loading logs for profile: {}", this.playerFolder.getName());
+        final File folder = this.playerFolder;
+        if (config.trackHistory()) {
+            loadHistory();
+        }
+
+        // Hopping back onto a profile that was already loaded doesn't need to touch the disk
+        LogStore cachedStore = profileCache.get(folder.getName());
+        if (cachedStore != null) {
+            log.debug("Using cached logs for profile: {}", folder.getName());
+            logStore = cachedStore;
+            metrics.setStoreSize(logStore.size());
+            ingestion.recheck();
+            updateWorldMapMarkers();
+            return;
+        }
 
-        final Path logsPath = getLogFilePath();
-        if (Files.exists(logsPath)) {
-            try (BufferedReader reader = Files.newBufferedReader(logsPath);
-                 JsonReader jsonReader = new JsonReader(reader)) {
-                final Type type = new TypeToken<Map<Integer, LogEntry>>() {
-                }.getType();
-                itemLogs = gson.fromJson(jsonReader, type);
-            } catch (IOException | JsonSyntaxException e) {
-                log.error("Unable to read item logs at: " + logsPath, e);
+        log.debug("Loading logs for profile: {}", folder.getName());
+        // Unlocks seen while loading go here and are checked against the saved logs once they are in
+        final LogStore buffered = new LogStore();
+        logStore = buffered;
+        logsLoading = true;
+        logPersistence.load(folder)
+                .thenAccept(loaded -> clientThread.invoke(() -> publishLoadedLogs(folder, loaded, buffered)))
+                .exceptionally(e -> {
+                    log.error("Unable to load item logs for: " + folder, e);
+                    return null;
+                });
+    }
+
+    private void publishLoadedLogs(File folder, LogStore loaded, LogStore buffered) {
+        resolveNames(loaded);
+        profileCache.put(folder.getName(), loaded);
+        boolean isCurrent = logStore == buffered;
+        if (isCurrent) {
+            logStore = loaded;
+            logsLoading = false;
+            metrics.setStoreSize(loaded.size());
+            // Anything seen before the logs were loaded has to be checked again
+            ingestion.recheck();
+        }
+        List<LogEntry> newEntries = new ArrayList<>();
+        for (int row = 0; row < buffered.size(); row++) {
+            int itemId = buffered.itemId(row);
+            if (loaded.contains(itemId)) {
+                continue;
+            }
+            loaded.add(itemId, buffered.name(row), buffered.timestamp(row), buffered.worldPoint(row));
+            if (isCurrent) {
+                newEntries.add(logNewEntry(itemId, buffered.name(row), buffered.timestamp(row), buffered.worldPoint(row)));
+            } else {
+                newEntries.add(buffered.entry(row));
+            }
+        }
+        if (!newEntries.isEmpty()) {
+            // Even if the profile was left while it was loading, keep what was unlocked on it
+            logPersistence.append(folder, newEntries);
+            if (isCurrent) {
+                openPopUp(newEntries);
+            }
+        }
+        if (isCurrent) {
+            updateWorldMapMarkers();
+            if (this.logWidgetNode != null) {
+                renderEntries();
             }
         }
     }
 
+    private void loadHistory() {
+        if (this.playerFolder == null || history != null) {
+            return;
+        }
+        final File folder = this.playerFolder;
+        // Acquisitions while loading are recorded here and merged in once it is loaded
+        final AcquisitionHistory buffered = new AcquisitionHistory();
+        history = buffered;
+        historyLoading = true;
+        logPersistence.loadHistory(folder)
+                .thenAccept(loaded -> clientThread.invoke(() -> {
+                    loaded.merge(buffered);
+                    if (history == buffered) {
+                        history = loaded;
+                        historyLoading = false;
+                        if (this.logWidgetNode != null) {
+                            renderEntries();
+                        }
+                    } else if (loaded.isDirty()) {
+                        // Left the profile while it was loading
+                        saveHistory(folder, loaded);
+                    }
+                }))
+                .exceptionally(e -> {
+                    log.error("Unable to load acquisition history for: " + folder, e);
+                    return null;
+                });
+    }
+
+    // The write queued on the writer thread, null if there was nothing to save
+    private Future<?> saveHistory() {
+        if (history != null) {
+            // Called between ticks, nothing more will be netted against what the last one gained
+            history.commitTick();
+        }
+        // A history still loading would overwrite the saved one with only the newest acquisitions
+        if (history != null && !historyLoading && history.isDirty() && this.playerFolder != null) {
+            return saveHistory(this.playerFolder, history);
+        }
+        return null;
+    }
+
+    private Future<?> saveHistory(File folder, AcquisitionHistory history) {
+        try {
+            Future<?> write = logPersistence.saveHistory(folder, history.toBytes());
+            history.clearDirty();
+            return write;
+        } catch (IOException e) {
+            log.error("Unable to save acquisition history for: " + folder, e);
+            return null;
+        }
+    }
+
+    @Subscribe
+    public void onGameTick(GameTick event) {
+        closeFinishedPopUp();
+        long start = metrics.start();
+        ingestion.onTick(logStore, history);
+        metrics.recordTime(PluginMetrics.Metric.TICK, start);
+        commitUnlocks(true);
+        showNextPopUp();
+        if (++ticksSinceHistorySave >= HISTORY_SAVE_TICKS) {
+            ticksSinceHistorySave = 0;
+            saveHistory();
+        }
+    }
+
+    /*
+     * Snapshots don't store names, look them up for rows read from one. Spread over client cycles,
+     * newest rows first, so a large log doesn't stall a frame. The log interface reads names from
+     * the item metadata cache so it doesn't have to wait, only search and the name sort do.
+     */
+    private void resolveNames(LogStore store) {
+        final int[] nextRow = {store.size() - 1};
+        clientThread.invokeLater(() -> {
+            int end = Math.max(-1, nextRow[0] - NAME_CHUNK);
+            for (; nextRow[0] > end; nextRow[0]--) {
+                int row = nextRow[0];
+                if (store.name(row) == null) {
+                    store.setName(row, itemMetadata.name(store.itemId(row)));
+                }
+            }
+            if (nextRow[0] >= 0) {
+                return false;
+            }
+            // Marker tooltips were built with whatever names there were
+            if (store == displayedStore()) {
+                updateWorldMapMarkers();
+            }
+            return true;
+        });
+    }
+
     @Override
     protected void shutDown() throws Exception {
         log.info("Collection Log Plus stopped!");
-        saveLogs();
+        overlayManager.remove(metricsOverlay);
+        metrics.setEnabled(false);
+        eventRecorder.stop();
+        commitUnlocks(false);
+        saveHistory();
+        history = null;
+        historyLoading = false;
+        logPersistence.stop();
+        profileCache.clear();
+        worldMapMarkers.clear();
+        popupScheduler.clear();
+        popupNode = null;
     }
 
-    void saveLogs() {
-        if (!itemLogs.isEmpty()) {
-            writeLogsToDisk(gson.toJson(itemLogs));
+    // Only queues the entries for the writer thread, never touches the disk
+    void saveLogs(List<LogEntry> logEntries) {
+        if (this.playerFolder != null) {
+            logPersistence.append(this.playerFolder, logEntries);
         }
     }
 
@@ -158,67 +490,152 @@ public class CollectionLogPlusPlugin extends Plugin {
 
     @Subscribe
     public void onItemContainerChanged(ItemContainerChanged event) {
-        final ItemContainer itemContainer = event.getItemContainer();
-        if (event.getContainerId() != InventoryID.INVENTORY.getId()) {
+        final AcquisitionSource source = AcquisitionSource.forContainer(event.getContainerId());
+        if (source == null || !isSourceEnabled(source)) {
             return;
         }
-        Set<Integer> currentInventory = new HashSet<>();
-        Arrays.stream(itemContainer.getItems())
-                .forEach(item -> currentInventory.add(item.getId()));
-
-        for (int itemId : currentInventory) {
-            if (itemId == -1) {
-                continue;
-            }
-            final ItemComposition itemComposition = itemManager.getItemComposition(itemId);
-            String name = itemComposition.getName();
-            // treat all banknotes as the same item
-            if (itemComposition.getNote() != -1) {
-                itemId = BANK_NOTE_ITEM_ID;
-                name = "Bank note";
-            }
-            if (!itemLogs.containsKey(itemId)) {
-                String timestamp = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date());
-                WorldPoint playerPos = client.getLocalPlayer().getWorldLocation();
-                LogEntry logEntry = new LogEntry(
-                        itemId,
-                        name,
-                        timestamp,
-                        playerPos
-                );
-                itemLogs.put(itemId, logEntry);
-                openPopUp(logEntry);
-                saveLogs();
+        long start = metrics.start();
+        long now = System.currentTimeMillis();
+        final Item[] items = event.getItemContainer().getItems();
+        if (eventRecorder.isRecording()) {
+            int[] itemIds = new int[items.length];
+            int[] quantities = new int[items.length];
+            for (int slot = 0; slot < items.length; slot++) {
+                itemIds[slot] = items[slot].getId();
+                quantities[slot] = items[slot].getQuantity();
             }
+            eventRecorder.recordInventory(now, event.getContainerId(), playerLocation(), itemIds, quantities);
         }
+        ingestion.onContainerChanged(source, items, logStore, history, now);
+        metrics.recordTime(PluginMetrics.Metric.CONTAINERS, start);
     }
 
     @Subscribe
     public void onNpcLootReceived(NpcLootReceived npcLootReceived) {
+        if (!config.trackNpcLoot()) {
+            return;
+        }
+        long start = metrics.start();
         final Collection<ItemStack> items = npcLootReceived.getItems();
-        for (ItemStack item : items) {
-            int itemId = item.getId();
-            final ItemComposition itemComposition = itemManager.getItemComposition(itemId);
-            String name = itemComposition.getName();
-            // treat all banknotes as the same item
-            if (itemComposition.getNote() != -1) {
-                itemId = BANK_NOTE_ITEM_ID;
-                name = "Bank note";
-            }
-            if (!itemLogs.containsKey(itemId)) {
-                String timestamp = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date());
-                WorldPoint playerPos = client.getLocalPlayer().getWorldLocation();
-                LogEntry logEntry = new LogEntry(
-                        itemId,
-                        name,
-                        timestamp,
-                        playerPos
-                );
-                itemLogs.put(itemId, logEntry);
-                openPopUp(logEntry);
-                saveLogs();
+        long now = System.currentTimeMillis();
+        if (eventRecorder.isRecording()) {
+            eventRecorder.recordNpcLoot(now, npcLootReceived.getNpc().getId(), playerLocation(), stackItemIds(items), stackQuantities(items));
+        }
+        ingestion.onLoot(AcquisitionSource.NPC_LOOT, items, logStore, history, now);
+        metrics.recordTime(PluginMetrics.Metric.LOOT, start);
+    }
+
+    @Subscribe
+    public void onLootReceived(LootReceived lootReceived) {
+        // NPC kills come through NpcLootReceived too, and only that one is counted in the history
+        if (!config.trackLoot() || (lootReceived.getType() == LootRecordType.NPC && config.trackNpcLoot())) {
+            return;
+        }
+        long start = metrics.start();
+        final Collection<ItemStack> items = lootReceived.getItems();
+        long now = System.currentTimeMillis();
+        if (eventRecorder.isRecording()) {
+            eventRecorder.recordLoot(now, lootReceived.getType().ordinal(), playerLocation(), stackItemIds(items), stackQuantities(items));
+        }
+        ingestion.onLoot(AcquisitionSource.LOOT, items, logStore, history, now);
+        metrics.recordTime(PluginMetrics.Metric.LOOT, start);
+    }
+
+    private static int[] stackItemIds(Collection<ItemStack> items) {
+        return items.stream().mapToInt(ItemStack::getId).toArray();
+    }
+
+    private static int[] stackQuantities(Collection<ItemStack> items) {
+        return items.stream().mapToInt(ItemStack::getQuantity).toArray();
+    }
+
+    private boolean isSourceEnabled(AcquisitionSource source) {
+        switch (source) {
+            case INVENTORY:
+                return config.trackInventory();
+            case EQUIPMENT:
+                return config.trackEquipment();
+            case BANK:
+                return config.trackBank();
+            case LOOT:
+                return config.trackLoot();
+            case NPC_LOOT:
+                return config.trackNpcLoot();
+            default:
+                return false;
+        }
+    }
+
+    private void startRecording() {
+        eventRecorder.start(RECORDING_DIR, LogEntry.formatTimestamp(System.currentTimeMillis()), itemLookup);
+    }
+
+    private int playerLocation() {
+        return LogStore.packLocation(playerPosition());
+    }
+
+    private WorldPoint playerPosition() {
+        Player player = client.getLocalPlayer();
+        return player == null ? null : player.getWorldLocation();
+    }
+
+    private void addLogEntry(int itemId, String name) {
+        // However many events hold it this tick, it is logged once
+        unlockBatch.add(itemId, name);
+    }
+
+    /*
+     * Logs everything new this tick with one timestamp and location, then saves them and shows
+     * them in a single popup.
+     */
+    private void commitUnlocks(boolean notify) {
+        if (unlockBatch.isEmpty()) {
+            return;
+        }
+        long start = metrics.start();
+        long timestamp = System.currentTimeMillis();
+        WorldPoint playerPos = playerPosition();
+        List<LogEntry> newEntries = new ArrayList<>(unlockBatch.size());
+        for (int i = 0; i < unlockBatch.size(); i++) {
+            int itemId = unlockBatch.itemId(i);
+            String name = unlockBatch.name(i);
+            if (logStore.add(itemId, name, timestamp, playerPos) == -1 || logsLoading) {
+                // While loading, decided once the saved logs are in
+                continue;
             }
+            newEntries.add(logNewEntry(itemId, name, timestamp, playerPos));
+        }
+        metrics.record(PluginMetrics.Metric.UNLOCKS_PER_TICK, unlockBatch.size());
+        unlockBatch.clear();
+        metrics.setStoreSize(logStore.size());
+        if (!newEntries.isEmpty()) {
+            saveLogs(newEntries);
+            if (notify) {
+                openPopUp(newEntries);
+            }
+        }
+        metrics.recordTime(PluginMetrics.Metric.UNLOCK_COMMIT, start);
+    }
+
+    // Folds a new row of the current profile into the views over it
+    private LogEntry logNewEntry(int itemId, String name, long timestamp, WorldPoint playerPos) {
+        // Fold into the account wide view, it only keeps the first time obtained anywhere
+        if (accountStore != null) {
+            accountStore.add(itemId, name, timestamp, playerPos);
+        }
+        if (config.showWorldMapUnlocks()) {
+            LogStore store = displayedStore();
+            worldMapMarkers.onRowAdded(store, store.rowOf(itemId));
+        }
+        if (catalogProgress != null) {
+            catalogProgress.update();
         }
+        return new LogEntry(
+                itemId,
+                name,
+                LogEntry.formatTimestamp(timestamp),
+                playerPos
+        );
     }
 
     @Subscribe
@@ -248,43 +665,220 @@ public class CollectionLogPlusPlugin extends Plugin {
             this.openSkillGuideInterfaceSource = "characterSummary";
             this.selectedTab = "items";
             client.runScript(1902, 1, 0);
+            if (config.accountWideLog()) {
+                refreshAccountLog();
+            }
         });
     }
 
-    private void openPopUp(LogEntry newLogEntry) {
+    private void refreshAccountLog() {
+        if (this.playerFolder == null) {
+            return;
+        }
+        final String liveFolder = this.playerFolder.getName();
+        accountLogAggregator.refresh(LOG_DIR, liveFolder)
+                .thenAccept(store -> clientThread.invoke(() -> {
+                    if (this.playerFolder == null || !this.playerFolder.getName().equals(liveFolder)) {
+                        return;
+                    }
+                    resolveNames(store);
+                    // Entries not yet on disk when the profiles were read
+                    for (int row = 0; row < logStore.size(); row++) {
+                        store.add(logStore.itemId(row), logStore.name(row), logStore.timestamp(row), logStore.worldPoint(row));
+                    }
+                    accountStore = store;
+                    updateWorldMapMarkers();
+                    if (this.logWidgetNode != null) {
+                        renderEntries();
+                    }
+                }))
+                .exceptionally(e -> {
+                    log.error("Unable to build the account wide log", e);
+                    return null;
+                });
+    }
+
+    // Store the log interface and map markers show, the account wide one once it has been built
+    private LogStore displayedStore() {
+        return config.accountWideLog() && accountStore != null ? accountStore : logStore;
+    }
+
+    /*
+     * The catalog only changes with the game cache, so it is read from disk when there is one for
+     * this revision. Otherwise it is built from the item definitions a chunk per client cycle and
+     * saved for next time.
+     */
+    private void loadItemCatalog() {
+        final int revision = client.getRevision();
+        if (catalogLoading || (itemCatalog != null && itemCatalog.revision() == revision)) {
+            return;
+        }
+        catalogLoading = true;
+        final File catalogFile = new File(LOG_DIR, "catalog-" + revision + ".bin");
+        logPersistence.supplyOnWriter(() -> readItemCatalog(catalogFile, revision))
+                .thenAccept(catalog -> clientThread.invoke(() -> {
+                    if (catalog != null) {
+                        publishItemCatalog(catalog);
+                    } else {
+                        buildItemCatalog(catalogFile, revision);
+                    }
+                }))
+                .exceptionally(e -> {
+                    log.error("Unable to load item catalog: " + catalogFile, e);
+                    // Tried again when the missing or progress tab is next opened
+                    clientThread.invoke(() -> {
+                        catalogLoading = false;
+                    });
+                    return null;
+                });
+    }
+
+    private ItemCatalog readItemCatalog(File catalogFile, int revision) {
+        if (!catalogFile.isFile()) {
+            return null;
+        }
+        try (InputStream in = new FileInputStream(catalogFile)) {
+            return ItemCatalog.read(in, revision);
+        } catch (IOException | RuntimeException e) {
+            // Damaged, built again
+            log.warn("Unable to read item catalog: " + catalogFile, e);
+            return null;
+        }
+    }
+
+    private void buildItemCatalog(File catalogFile, int revision) {
+        log.debug("Building item catalog for revision {}", revision);
+        final ItemCatalogBuilder builder = new ItemCatalogBuilder(itemLookup, revision, client.getItemCount());
+        catalogBuilder = builder;
+        clientThread.invokeLater(() -> {
+            try {
+                if (!builder.step(CATALOG_CHUNK)) {
+                    return false;
+                }
+            } catch (RuntimeException e) {
+                log.error("Unable to build item catalog for revision " + revision, e);
+                catalogBuilder = null;
+                catalogLoading = false;
+                return true;
+            }
+            ItemCatalog catalog = builder.build();
+            catalogBuilder = null;
+            publishItemCatalog(catalog);
+            logPersistence.runOnWriter(() -> writeItemCatalog(catalogFile, catalog));
+            return true;
+        });
+    }
+
+    private void writeItemCatalog(File catalogFile, ItemCatalog catalog) {
+        File tempFile = new File(catalogFile.getPath() + ".tmp");
+        try {
+            try (OutputStream out = new FileOutputStream(tempFile)) {
+                ItemCatalog.write(out, catalog);
+            }
+            Files.move(tempFile.toPath(), catalogFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Unable to save item catalog: " + catalogFile, e);
+            return;
+        }
+        // Catalogs for earlier revisions won't be read again
+        File[] staleFiles = LOG_DIR.listFiles((dir, name) ->
+                name.startsWith("catalog-") && name.endsWith(".bin") && !name.equals(catalogFile.getName()));
+        if (staleFiles != null) {
+            for (File staleFile : staleFiles) {
+                staleFile.delete();
+            }
+        }
+    }
+
+    private void publishItemCatalog(ItemCatalog catalog) {
+        itemCatalog = catalog;
+        catalogLoading = false;
+        catalogProgress = null;
+        if (this.logWidgetNode != null && (selectedTab.equals("missing") || selectedTab.equals("progress"))) {
+            renderEntries();
+        }
+    }
+
+    // null until the catalog is ready
+    private CatalogProgress catalogProgress() {
+        if (itemCatalog == null) {
+            return null;
+        }
+        LogStore store = displayedStore();
+        if (catalogProgress == null || !catalogProgress.isFor(itemCatalog, store)) {
+            catalogProgress = new CatalogProgress(itemCatalog, store);
+        }
+        catalogProgress.update();
+        return catalogProgress;
+    }
+
+    private void updateWorldMapMarkers() {
+        if (config.showWorldMapUnlocks() && this.playerFolder != null) {
+            worldMapMarkers.show(displayedStore());
+        } else {
+            worldMapMarkers.clear();
+        }
+    }
+
+    private void openPopUp(List<LogEntry> newLogEntries) {
         if (!config.enableCollectionLogPopup()) {
             return;
         }
+        popupScheduler.offer(newLogEntries);
+        showNextPopUp();
+    }
+
+    private void showNextPopUp() {
+        final PopupScheduler.Popup popup = popupScheduler.next(
+                System.currentTimeMillis(),
+                config.popupDelay() * 1000L,
+                config.mergePopups()
+        );
+        if (popup == null) {
+            return;
+        }
         clientThread.invokeLater(() -> {
             // Handles both resizable and fixed modes
             int componentId = (client.getTopLevelInterfaceId() << 16) | (client.isResized() ? 13 : 43);
-            WidgetNode widgetNode = client.openInterface(
+            popupNode = client.openInterface(
                     componentId,
                     COLLECTION_LOG_POPUP_WIDGET,
                     WidgetModalMode.MODAL_CLICKTHROUGH
             );
-            String title = "Collection Log +";
-            String description = String.format(
-                    "New item:<br><br><col=ffffff>%s</col>",
-                    newLogEntry.getName()
-            );
-            client.runScript(3343, title, description, -1);
-
-            clientThread.invokeLater(() -> {
-                Widget w = client.getWidget(COLLECTION_LOG_POPUP_WIDGET, 1);
-                if (w == null || w.getWidth() > 0) {
-                    return false;
-                }
-                try {
-                    client.closeInterface(widgetNode, true);
-                } catch (IllegalArgumentException e) {
-                    log.debug("Interface attempted to close, but was no longer valid.");
-                }
-                return true;
-            });
+            client.runScript(3343, "Collection Log +", popup.description(), -1);
         });
     }
 
+    /*
+     * The popup script doesn't say when it is done, it shrinks the popup to nothing and leaves the
+     * interface open. Checked once a tick rather than every frame, the next popup can wait that long.
+     */
+    private void closeFinishedPopUp() {
+        if (popupNode == null) {
+            return;
+        }
+        Widget w = client.getWidget(COLLECTION_LOG_POPUP_WIDGET, 1);
+        if (w == null || w.getWidth() > 0) {
+            return;
+        }
+        WidgetNode widgetNode = popupNode;
+        popupNode = null;
+        popupScheduler.onClosed(System.currentTimeMillis());
+        try {
+            client.closeInterface(widgetNode, true);
+        } catch (IllegalArgumentException e) {
+            log.debug("Interface attempted to close, but was no longer valid.");
+        }
+    }
+
+    @Subscribe
+    public void onWidgetClosed(WidgetClosed event) {
+        // Closed by the game before it finished, a login screen or another interface replacing it
+        if (event.getGroupId() == COLLECTION_LOG_POPUP_WIDGET && popupNode != null) {
+            popupNode = null;
+            popupScheduler.onClosed(System.currentTimeMillis());
+        }
+    }
 
     @Subscribe
     public void onScriptPreFired(ScriptPreFired event) {
@@ -293,6 +887,7 @@ public class CollectionLogPlusPlugin extends Plugin {
             clientThread.invokeLater(() -> {
                 client.closeInterface(this.logWidgetNode, true);
                 this.logWidgetNode = null;
+                listView.clear();
                 this.openSkillGuideInterfaceSource = "";
                 return true;
             });
@@ -301,12 +896,36 @@ public class CollectionLogPlusPlugin extends Plugin {
         if (event.getScriptId() == 1902 && this.logWidgetNode != null) {
             if (this.openSkillGuideInterfaceSource.isEmpty()) {
                 this.logWidgetNode = null;
+                listView.clear();
             } else {
                 this.openSkillGuideInterfaceSource = "";
             }
         }
     }
 
+    @Subscribe
+    public void onMenuOptionClicked(MenuOptionClicked event) {
+        // Tab parts are dynamic children of the tabs container, nine per tab
+        if (this.logWidgetNode == null || event.getParam1() != (SKILL_GUIDE_WIDGET << 16 | 7)) {
+            return;
+        }
+        int tab = event.getParam0() / 9;
+        if (tab >= 0 && tab < LOG_TABS.length) {
+            this.selectedTab = LOG_TABS[tab];
+        }
+    }
+
+    @Subscribe
+    public void onBeforeRender(BeforeRender event) {
+        metrics.onFrame();
+        // Scrolling only moves the container, rebind the row pool to whatever is now in view
+        if (this.logWidgetNode != null) {
+            long start = metrics.start();
+            listView.onScroll();
+            metrics.recordTime(PluginMetrics.Metric.SCROLL, start);
+        }
+    }
+
     @Subscribe
     public void onScriptPostFired(ScriptPostFired event) {
         if (config.enableCustomCollectionLog()
@@ -317,12 +936,9 @@ public class CollectionLogPlusPlugin extends Plugin {
             /*
              * TITLE
              */
-            Widget skillGuideUIContainer = client.getWidget(SKILL_GUIDE_WIDGET, 3);
-            if (skillGuideUIContainer == null) {
+            if (!renderTitle()) {
                 return;
             }
-            Widget[] skillGuideUIParts = skillGuideUIContainer.getDynamicChildren();
-            skillGuideUIParts[1].setText("Collection Log Plus");
 
             /*
              * TABS
@@ -331,184 +947,492 @@ public class CollectionLogPlusPlugin extends Plugin {
             if (skillGuideTabsContainer == null || skillGuideTabsContainer.getChildren() == null) {
                 return;
             }
-            Widget[] skillGuideTabParts = Arrays.copyOfRange(skillGuideTabsContainer.getChildren(), 0, 9);
+            int tabCount = Math.min(LOG_TABS.length, skillGuideTabsContainer.getChildren().length / 9);
+            Widget[] skillGuideTabParts = Arrays.copyOfRange(skillGuideTabsContainer.getChildren(), 0, tabCount * 9);
             skillGuideTabsContainer.deleteAllChildren();
             skillGuideTabsContainer.setChildren(skillGuideTabParts);
 
-            if (skillGuideTabParts[0].getName().isEmpty()) {
-                this.selectedTab = "items";
-            } else {
-                skillGuideTabParts[0].setName("<col=ff9040>Items</col>");
+            for (int tab = 0; tab < tabCount; tab++) {
+                if (skillGuideTabParts[tab * 9].getName().isEmpty()) {
+                    // The selected tab has no name
+                    this.selectedTab = LOG_TABS[tab];
+                } else {
+                    skillGuideTabParts[tab * 9].setName("<col=ff9040>" + LOG_TAB_NAMES[tab] + "</col>");
+                }
+                skillGuideTabParts[tab * 9 + 8].setText(LOG_TAB_NAMES[tab]);
             }
-            skillGuideTabParts[8].setText("Items");
 
-            /*
-             * Entries
-             */
-            Widget rowEntriesContainer = client.getWidget(SKILL_GUIDE_WIDGET, 8);
-            if (rowEntriesContainer == null) {
-                return;
+            renderEntries();
+        }
+    }
+
+    private boolean renderTitle() {
+        Widget skillGuideUIContainer = client.getWidget(SKILL_GUIDE_WIDGET, 3);
+        if (skillGuideUIContainer == null) {
+            return false;
+        }
+        Widget[] skillGuideUIParts = skillGuideUIContainer.getDynamicChildren();
+        skillGuideUIParts[1].setText(logQuery.getSearch().isEmpty()
+                ? "Collection Log Plus"
+                : "Collection Log Plus - \"" + logQuery.getSearch() + "\"");
+        return true;
+    }
+
+    private void renderEntries() {
+        /*
+         * Entries
+         */
+        Widget rowEntriesContainer = client.getWidget(SKILL_GUIDE_WIDGET, 8);
+        if (rowEntriesContainer == null) {
+            return;
+        }
+        long start = metrics.start();
+        rowEntriesContainer.deleteAllChildren();
+        listView.clear();
+        int y = 0;
+        switch (selectedTab) {
+            case "items": {
+                y = renderItemLog(rowEntriesContainer);
+                break;
             }
-            rowEntriesContainer.deleteAllChildren();
-            int y = 0;
-            switch (selectedTab) {
-                case "items": {
-                    y = renderItemLog(rowEntriesContainer);
-                    break;
-                }
+            case "locations": {
+                y = renderLocations(rowEntriesContainer);
+                break;
             }
-            /*
-             * Scroll Bar
-             */
-            Widget entriesScrollBar = client.getWidget(SKILL_GUIDE_WIDGET, 10);
-            if (entriesScrollBar != null && y > 0) {
-                rowEntriesContainer.setScrollHeight(y);
-                int scrollHeight = (rowEntriesContainer.getScrollY() * y) / rowEntriesContainer.getScrollHeight();
-                rowEntriesContainer.revalidateScroll();
-                clientThread.invokeLater(() ->
-                                                 client.runScript(
-                                                         ScriptID.UPDATE_SCROLLBAR,
-                                                         entriesScrollBar.getId(),
-                                                         rowEntriesContainer.getId(),
-                                                         scrollHeight
-                                                 )
-                );
-                rowEntriesContainer.setScrollY(0);
-                entriesScrollBar.setScrollY(0);
+            case "missing": {
+                y = renderMissing(rowEntriesContainer);
+                break;
             }
+            case "progress": {
+                y = renderProgress(rowEntriesContainer);
+                break;
+            }
+        }
+        /*
+         * Scroll Bar
+         */
+        Widget entriesScrollBar = client.getWidget(SKILL_GUIDE_WIDGET, 10);
+        if (entriesScrollBar != null && y > 0) {
+            rowEntriesContainer.setScrollHeight(y);
+            int scrollHeight = (rowEntriesContainer.getScrollY() * y) / rowEntriesContainer.getScrollHeight();
+            rowEntriesContainer.revalidateScroll();
+            clientThread.invokeLater(() ->
+                                             client.runScript(
+                                                     ScriptID.UPDATE_SCROLLBAR,
+                                                     entriesScrollBar.getId(),
+                                                     rowEntriesContainer.getId(),
+                                                     scrollHeight
+                                             )
+            );
+            rowEntriesContainer.setScrollY(0);
+            entriesScrollBar.setScrollY(0);
         }
+        metrics.record(PluginMetrics.Metric.RENDER_WIDGETS, listView.widgetCount());
+        metrics.recordTime(PluginMetrics.Metric.RENDER, start);
     }
 
     private int renderItemLog(Widget rowEntriesContainer) {
-        int index = 0;
-        int y = 0;
-        for (LogEntry entry : itemLogs.values()) {
-            int itemId = entry.getItemId();
-            String name = itemId == BANK_NOTE_ITEM_ID
-                    ? "Bank note"
-                    : entry.getName();
-            int rowHeight = renderLogRow(
-                    rowEntriesContainer,
-                    new String[]{name},
-                    index,
-                    y,
-                    itemId
+        final LogStore store = displayedStore();
+        final AcquisitionHistory history = this.history;
+        final long now = System.currentTimeMillis();
+        // Right click options in order, each with what it does
+        final Map<String, Runnable> actions = new LinkedHashMap<>();
+        actions.put("Search", this::openSearchInput);
+        actions.put("Sort: " + logQuery.getSortOrder().next(), () ->
+                // Re-rendered through the config change
+                configManager.setConfiguration(
+                        CollectionLogPlusConfig.GROUP,
+                        "sortOrder",
+                        logQuery.getSortOrder().next()
+                ));
+        actions.put(logQuery.getRegionId() != -1 ? "Show all regions" : "Show this region", () -> {
+            logQuery.setRegionId(logQuery.getRegionId() != -1
+                    ? -1
+                    : client.getLocalPlayer().getWorldLocation().getRegionID());
+            renderTitle();
+            renderEntries();
+        });
+        actions.put(logQuery.getNearby() != null ? "Show all locations" : "Show nearby", () -> {
+            logQuery.setNearby(
+                    logQuery.getNearby() != null ? null : client.getLocalPlayer().getWorldLocation(),
+                    NEARBY_RADIUS
             );
-            index++;
-            y += rowHeight;
-        }
-        return y;
-    }
-
-    private int renderLogRow(
-            Widget rowEntriesContainer, String[] descriptionTexts, int index, int y, int itemId
-    ) {
-        final int ODD_OPACITY = 200;
-        final int EVEN_OPACITY = 220;
-        final int PADDING = 12;
-        final int LINE_HEIGHT = 12;
-        final int ITEM_SIZE = PADDING + LINE_HEIGHT + PADDING;
-        // Limit rendering to only 20 as get index out of bounds with > 100 log entries
-        final int CHUNK_SIZE = 20;
-
-        boolean hasItem = itemId > -1;
-
-        // Background Box widget
-        Widget logRowBox = rowEntriesContainer.createChild(-1, WidgetType.RECTANGLE);
-        logRowBox.setFilled(true);
-        logRowBox.setOpacity(index % 2 == 0 ? ODD_OPACITY : EVEN_OPACITY);
-        logRowBox.setBorderType(0);
-        logRowBox.setWidthMode(1);
-        logRowBox.setOriginalY(y);
-        logRowBox.revalidate();
-
-        // Text entries for the row
-        int textX = PADDING + (hasItem ? ITEM_SIZE : 0);
-        int textColor = Integer.parseInt("ff981f", 16);
-        Widget logRowText = rowEntriesContainer.createChild(-1, WidgetType.TEXT);
-        logRowText.setTextColor(textColor);
-        logRowText.setLineHeight(LINE_HEIGHT);
-        logRowText.setTextShadowed(true);
-        logRowText.setFontId(FontID.PLAIN_12);
-        logRowText.setOriginalWidth(textX);
-        logRowText.setWidthMode(1);
-        logRowText.setOriginalX(textX);
-        logRowText.setOriginalY(y + PADDING);
-        logRowText.revalidate();
-
-        // Word wrapping without being able to get the text box height this is works well
-        List<String> logText = buildLogTextLines(
-                logRowText,
-                descriptionTexts
-        );
+            renderTitle();
+            renderEntries();
+        });
+        if (history != null) {
+            actions.put("Count since date", this::openHistorySinceInput);
+        }
+        actions.put("Export log", this::exportLog);
+        actions.put("Import log", this::openImportInput);
+        if (logQuery.isFiltered()) {
+            actions.put("Clear filters", () -> {
+                logQuery.setSearch("");
+                logQuery.setRegionId(-1);
+                logQuery.setNearby(null, 0);
+                renderTitle();
+                renderEntries();
+            });
+        }
+        final String[] actionNames = actions.keySet().toArray(new String[0]);
+        final Runnable[] actionHandlers = actions.values().toArray(new Runnable[0]);
+        listView.setRowActions(actionNames, (action, index) -> actionHandlers[action].run());
+        return listView.render(rowEntriesContainer, new LogListView.Rows() {
+            @Override
+            public int size() {
+                return logQuery.size(store);
+            }
+
+            @Override
+            public int itemId(int index) {
+                return store.itemId(logQuery.row(store, index));
+            }
+
+            @Override
+            public Object layoutKey() {
+                return Arrays.asList(
+                        "items",
+                        store,
+                        store.version(),
+                        logQuery.version(),
+                        history,
+                        history != null ? history.version() : 0,
+                        historySince
+                );
+            }
 
-        int maxLines = logText.size();
-        int boxHeight = PADDING + maxLines * LINE_HEIGHT + PADDING;
-
-        // Recalculating height once the line count is known
-        // Background Box
-        logRowBox.setOriginalHeight(boxHeight);
-        logRowBox.revalidate();
-        // Log texts
-        List<List<String>> logTextChunks = Lists.partition(logText, CHUNK_SIZE);
-
-        logRowText.setOriginalHeight(logTextChunks.get(0).size() * LINE_HEIGHT);
-        logRowText.setText(String.join("<br>", logTextChunks.get(0)));
-        logRowText.revalidate();
-
-        // Splits text boxes into chunks to avoid reaching capacity for the text font face
-        for (int chunk = 1; chunk < logTextChunks.size(); chunk++) {
-            List<String> textChunk = logTextChunks.get(chunk);
-            logRowText = rowEntriesContainer.createChild(-1, WidgetType.TEXT);
-            logRowText.setTextColor(textColor);
-            logRowText.setLineHeight(LINE_HEIGHT);
-            logRowText.setTextShadowed(true);
-            logRowText.setFontId(FontID.PLAIN_12);
-            logRowText.setOriginalWidth(textX);
-            logRowText.setWidthMode(1);
-            logRowText.setOriginalX(textX);
-            logRowText.setOriginalY(y + PADDING + chunk * CHUNK_SIZE * LINE_HEIGHT);
-            logRowText.setOriginalHeight(textChunk.size() * LINE_HEIGHT);
-            logRowText.setText(String.join("<br>", textChunk));
-            logRowText.revalidate();
-        }
-
-        // Rendering Item sprite for item logs
-        if (hasItem) {
-            Widget logRowItem = rowEntriesContainer.createChild(-1, WidgetType.GRAPHIC);
-            logRowItem.setItemId(itemId);
-            logRowItem.setItemQuantity(-1);
-            logRowItem.setOriginalX(PADDING);
-            logRowItem.setOriginalWidth(ITEM_SIZE);
-            logRowItem.setOriginalHeight(ITEM_SIZE - 2);
-            logRowItem.setOriginalY((y + 3) + (maxLines - 1) * (LINE_HEIGHT / 2)); // to center the item sprite
-            logRowItem.revalidate();
-        }
-
-        return boxHeight;
-    }
-
-    List<String> buildLogTextLines(
-            Widget logTextBox, String[] descriptionTexts
-    ) {
-        FontTypeFace font = logTextBox.getFont();
-        int width = logTextBox.getWidth();
-
-        List<String> lines = new ArrayList<>();
-        for (String descriptionText : descriptionTexts) {
-            List<String> words = new LinkedList<>(Arrays.asList(descriptionText.trim().split("\\s+")));
-            StringBuilder line = new StringBuilder("- ").append(words.remove(0));
-            for (String word : words) {
-                if (font.getTextWidth(line + " " + word) > width) {
-                    lines.add(line.toString());
-                    line = new StringBuilder(word);
+            @Override
+            public String[] texts(int index) {
+                int row = logQuery.row(store, index);
+                int itemId = store.itemId(row);
+                String name = itemMetadata.name(itemId);
+                if (history == null || history.count(itemId) == 0) {
+                    return new String[]{name};
+                }
+                String counts = String.format(
+                        "Obtained %,d times, %,d total",
+                        history.count(itemId),
+                        history.quantity(itemId)
+                );
+                if (historySince != -1) {
+                    counts += String.format(
+                            ", %,d times, %,d total since %s",
+                            history.countSince(itemId, historySince, now),
+                            history.quantitySince(itemId, historySince, now),
+                            SINCE_FORMAT.format(Instant.ofEpochMilli(historySince).atZone(ZoneId.systemDefault()))
+                    );
+                }
+                return new String[]{name, counts};
+            }
+        });
+    }
+
+    private void openSearchInput() {
+        chatboxPanelManager.openTextInput("Search collection log")
+                .value(logQuery.getSearch())
+                .onChanged(search -> clientThread.invoke(() -> {
+                    logQuery.setSearch(search);
+                    if (this.logWidgetNode != null) {
+                        renderTitle();
+                        renderEntries();
+                    }
+                }))
+                .build();
+    }
+
+    private void openHistorySinceInput() {
+        String current = historySince == -1
+                ? ""
+                : SINCE_FORMAT.format(Instant.ofEpochMilli(historySince).atZone(ZoneId.systemDefault()));
+        chatboxPanelManager.openTextInput("Count obtained since (yyyy-mm-dd), empty for none")
+                .value(current)
+                .onDone(input -> clientThread.invoke(() -> {
+                    if (input.trim().isEmpty()) {
+                        historySince = -1;
+                    } else {
+                        try {
+                            historySince = LocalDate.parse(input.trim(), SINCE_FORMAT)
+                                    .atStartOfDay(ZoneId.systemDefault())
+                                    .toInstant()
+                                    .toEpochMilli();
+                        } catch (DateTimeParseException e) {
+                            log.debug("Ignoring invalid date: {}", input);
+                            return;
+                        }
+                    }
+                    if (this.logWidgetNode != null) {
+                        renderEntries();
+                    }
+                }))
+                .build();
+    }
+
+    private void exportLog() {
+        if (this.playerFolder == null) {
+            return;
+        }
+        LogExportFormat format = config.exportFormat();
+        String fileName = this.playerFolder.getName() + "-"
+                + LogEntry.formatTimestamp(System.currentTimeMillis()) + "." + format.getExtension();
+        File target = new File(EXPORT_DIR, fileName);
+        // Shares the store's columns, written out on another thread
+        logExchange.export(logStore.snapshot(), target.toPath(), format)
+                .whenComplete((written, e) -> {
+                    if (e != null) {
+                        log.error("Unable to export item logs to: " + target, e);
+                        sendChatMessage("Unable to export the collection log.");
+                    } else {
+                        sendChatMessage(String.format("Exported %,d items to %s", written, target));
+                    }
+                });
+    }
+
+    private void openImportInput() {
+        chatboxPanelManager.openTextInput("Import file (in collection-log-plus/imports, or a full path)")
+                .onDone(input -> clientThread.invoke(() -> {
+                    if (!input.trim().isEmpty()) {
+                        importLog(input.trim());
+                    }
+                }))
+                .build();
+    }
+
+    private void importLog(String input) {
+        if (this.playerFolder == null || logsLoading) {
+            sendChatMessage("The collection log can't be imported until it has loaded.");
+            return;
+        }
+        File source = new File(input);
+        if (!source.isAbsolute()) {
+            source = new File(IMPORT_DIR, input);
+        }
+        if (!source.isFile()) {
+            sendChatMessage("No file to import at " + source);
+            return;
+        }
+        final File folder = this.playerFolder;
+        final File importFile = source;
+        logExchange.importFile(importFile.toPath(), client.getItemCount(), batch -> mergeImported(folder, batch))
+                .whenComplete((result, e) -> {
+                    if (e != null) {
+                        log.warn("Unable to import item logs from: " + importFile, e);
+                        sendChatMessage("Import from " + importFile.getName() + " stopped, nothing further was merged.");
+                        return;
+                    }
+                    String message = String.format(
+                            "Imported %,d of %,d items from %s",
+                            result.getMerged(),
+                            result.getRead(),
+                            importFile.getName()
+                    );
+                    if (result.getUnreadable() > 0) {
+                        message += String.format(", %,d unreadable or unknown items skipped", result.getUnreadable());
+                    }
+                    sendChatMessage(message);
+                    clientThread.invoke(() -> {
+                        updateWorldMapMarkers();
+                        if (this.logWidgetNode != null) {
+                            renderEntries();
+                        }
+                    });
+                });
+    }
+
+    // Merges one batch of imported entries on the client thread, the earliest time obtained wins
+    private CompletableFuture<Integer> mergeImported(File folder, List<LogEntry> batch) {
+        CompletableFuture<Integer> merged = new CompletableFuture<>();
+        clientThread.invoke(() -> {
+            if (this.playerFolder != folder) {
+                // Left the profile, the rest of the file is not for this one
+                merged.cancel(false);
+                return;
+            }
+            List<LogEntry> mergedEntries = new ArrayList<>();
+            for (LogEntry imported : batch) {
+                LogEntry logEntry = imported;
+                if (logEntry.getName() == null) {
+                    logEntry = new LogEntry(
+                            logEntry.getItemId(),
+                            itemMetadata.name(logEntry.getItemId()),
+                            logEntry.getTimestamp(),
+                            logEntry.getWorldPoint()
+                    );
+                }
+                int row = logStore.addEarliest(logEntry);
+                if (row == -1) {
                     continue;
                 }
-                line.append(" ").append(word);
+                mergedEntries.add(logStore.entry(row));
+                if (accountStore != null) {
+                    accountStore.addEarliest(logEntry);
+                }
+            }
+            // Replaying the journal keeps the earliest too, so this holds after a restart
+            if (!mergedEntries.isEmpty()) {
+                logPersistence.append(folder, mergedEntries);
             }
-            lines.add(line.toString());
+            metrics.setStoreSize(logStore.size());
+            merged.complete(mergedEntries.size());
+        });
+        return merged;
+    }
+
+    private void sendChatMessage(String message) {
+        clientThread.invoke(() -> client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", message, null));
+    }
+
+    private int renderLocations(Widget rowEntriesContainer) {
+        final LogStore store = displayedStore();
+        final SpatialIndex spatialIndex = store.spatialIndex();
+        // Regions with the most unlocks first
+        final int[] cellKeys = Arrays.stream(spatialIndex.cellKeys())
+                .boxed()
+                .sorted(Comparator.comparingInt(spatialIndex::cellCount).reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+        listView.setRowActions(
+                new String[]{"Show items"},
+                (action, index) -> {
+                    logQuery.setRegionId(SpatialIndex.cellRegionId(cellKeys[index]));
+                    this.selectedTab = "items";
+                    renderTitle();
+                    renderEntries();
+                }
+        );
+        return listView.render(rowEntriesContainer, new LogListView.Rows() {
+            @Override
+            public int size() {
+                return cellKeys.length;
+            }
+
+            @Override
+            public int itemId(int index) {
+                return store.itemId(spatialIndex.cellLatestRow(cellKeys[index]));
+            }
+
+            @Override
+            public Object layoutKey() {
+                return Arrays.asList("locations", store, store.version());
+            }
+
+            @Override
+            public String[] texts(int index) {
+                int cellKey = cellKeys[index];
+                int regionId = SpatialIndex.cellRegionId(cellKey);
+                int plane = SpatialIndex.cellPlane(cellKey);
+                int count = spatialIndex.cellCount(cellKey);
+                String location = String.format(
+                        "Region %d at %d, %d",
+                        regionId,
+                        (regionId >> 8) << 6,
+                        (regionId & 0xFF) << 6
+                );
+                if (plane != 0) {
+                    location += ", plane " + plane;
+                }
+                return new String[]{
+                        location,
+                        count + (count == 1 ? " item" : " items") + ", latest "
+                                + itemMetadata.name(store.itemId(spatialIndex.cellLatestRow(cellKey)))
+                };
+            }
+        });
+    }
+
+    private int renderMissing(Widget rowEntriesContainer) {
+        final CatalogProgress progress = catalogProgress();
+        listView.setRowActions(new String[0], null);
+        if (progress == null) {
+            return renderCatalogPending(rowEntriesContainer);
+        }
+        final ItemCatalog catalog = progress.catalog();
+        final int[] missing = progress.missing();
+        return listView.render(rowEntriesContainer, new LogListView.Rows() {
+            @Override
+            public int size() {
+                return missing.length;
+            }
+
+            @Override
+            public int itemId(int index) {
+                return catalog.itemId(missing[index]);
+            }
+
+            @Override
+            public Object layoutKey() {
+                return Arrays.asList("missing", progress, progress.obtained());
+            }
+
+            @Override
+            public String[] texts(int index) {
+                return new String[]{catalog.name(missing[index]), catalog.category(missing[index]).getLabel()};
+            }
+        });
+    }
+
+    private int renderProgress(Widget rowEntriesContainer) {
+        final CatalogProgress progress = catalogProgress();
+        listView.setRowActions(new String[0], null);
+        if (progress == null) {
+            return renderCatalogPending(rowEntriesContainer);
         }
+        final ItemCatalog catalog = progress.catalog();
+        final ItemCatalog.Category[] categories = ItemCatalog.Category.values();
+        return listView.render(rowEntriesContainer, new LogListView.Rows() {
+            @Override
+            public int size() {
+                return 1 + categories.length;
+            }
+
+            @Override
+            public int itemId(int index) {
+                return -1;
+            }
+
+            @Override
+            public String[] texts(int index) {
+                if (index == 0) {
+                    return new String[]{"All items", progressText(progress.obtained(), catalog.size())};
+                }
+                ItemCatalog.Category category = categories[index - 1];
+                return new String[]{
+                        category.getLabel(),
+                        progressText(progress.obtained(category), catalog.categorySize(category))
+                };
+            }
+        });
+    }
 
-        return lines;
+    private static String progressText(int obtained, int total) {
+        return String.format(
+                "%,d of %,d obtained, %.1f%%",
+                obtained,
+                total,
+                total == 0 ? 100.0 : obtained * 100.0 / total
+        );
+    }
+
+    private int renderCatalogPending(Widget rowEntriesContainer) {
+        // Starts over if the last attempt failed, does nothing while one is under way
+        loadItemCatalog();
+        final ItemCatalogBuilder builder = catalogBuilder;
+        return listView.render(rowEntriesContainer, new LogListView.Rows() {
+            @Override
+            public int size() {
+                return 1;
+            }
+
+            @Override
+            public int itemId(int index) {
+                return -1;
+            }
+
+            @Override
+            public String[] texts(int index) {
+                return new String[]{builder != null
+                        ? "Building the item catalog, " + builder.progress() + "% done"
+                        : "Loading the item catalog"};
+            }
+        });
     }
 }
@@ -0,0 +1,112 @@
+package com.collectionlogplus;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Records the item events the plugin sees to a file (see EventRecording) while enabled in the
+ * debug settings. Events are encoded on the client thread into memory and appended to the file
+ * on a separate thread once enough has built up.
+ */
+@Slf4j
+@Singleton
+class EventRecorder {
+    private static final int FLUSH_BYTES = 16 * 1024;
+
+    private ExecutorService writer;
+    private EventRecording.Encoder encoder;
+    private Path file;
+
+    @Inject
+    EventRecorder() {
+    }
+
+    boolean isRecording() {
+        return encoder != null;
+    }
+
+    void start(File recordingFolder, String name, LogIngestion.ItemLookup itemLookup) {
+        if (encoder != null) {
+            return;
+        }
+        recordingFolder.mkdirs();
+        file = new File(recordingFolder, name + ".clpr").toPath();
+        encoder = new EventRecording.Encoder(itemLookup);
+        writer = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder()
+                        .setNameFormat("collection-log-plus-recorder")
+                        .setDaemon(true)
+                        .build()
+        );
+        log.info("Recording item events to {}", file);
+    }
+
+    void recordInventory(long timestamp, int containerId, int location, int[] itemIds, int[] quantities) {
+        if (encoder != null) {
+            encoder.inventory(timestamp, containerId, location, itemIds, quantities);
+            flushIfFull();
+        }
+    }
+
+    void recordNpcLoot(long timestamp, int npcId, int location, int[] itemIds, int[] quantities) {
+        if (encoder != null) {
+            encoder.npcLoot(timestamp, npcId, location, itemIds, quantities);
+            flushIfFull();
+        }
+    }
+
+    void recordLoot(long timestamp, int lootType, int location, int[] itemIds, int[] quantities) {
+        if (encoder != null) {
+            encoder.loot(timestamp, lootType, location, itemIds, quantities);
+            flushIfFull();
+        }
+    }
+
+    void stop() {
+        if (encoder == null) {
+            return;
+        }
+        flush();
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Timed out waiting for the item event recording to be written");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Stopped recording item events to {}", file);
+        writer = null;
+        encoder = null;
+        file = null;
+    }
+
+    private void flushIfFull() {
+        if (encoder.size() >= FLUSH_BYTES) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        final byte[] bytes = encoder.drain();
+        final Path target = file;
+        writer.execute(() -> {
+            try {
+                Files.write(target, bytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                log.warn("Unable to write item event recording: " + target, e);
+            }
+        });
+    }
+}
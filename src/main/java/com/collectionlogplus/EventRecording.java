@@ -0,0 +1,202 @@
+package com.collectionlogplus;
+
+import net.runelite.api.ItemComposition;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.BitSet;
+
+/*
+ * Recording of the item events the log is built from (*.clpr), for replaying them offline.
+ *
+ * Layout, numbers are unsigned LEB128 varints as in BinarySnapshot:
+ *   magic "CLPR" (4 bytes), version (1 byte)
+ *   records until the end of the file, each a tag byte followed by:
+ *     ITEM        item id, note + 1, linked note id + 1, name (modified UTF-8),
+ *                 placeholder template id + 1 (from version 2)
+ *                 written before the first event holding the item, so a recording carries
+ *                 every item definition needed to replay it
+ *     INVENTORY   zigzag millis since the previous event, container id, packed location
+ *                 (4 bytes), slot count, per slot item id + 1 and quantity
+ *     NPC_LOOT    zigzag millis since the previous event, npc id, packed location (4 bytes),
+ *                 stack count, per stack item id and quantity
+ *     LOOT        as NPC_LOOT with the loot record type's ordinal in place of the npc id, for
+ *                 other loot the loot tracker reports (version 2)
+ *
+ * There is no trailer, records are appended while playing and a recording cut short by the
+ * client closing is read up to its last complete record.
+ */
+final class EventRecording {
+    private static final int MAGIC = 0x434C5052;
+    static final int VERSION = 2;
+    private static final int TAG_ITEM = 1;
+    private static final int TAG_INVENTORY = 2;
+    private static final int TAG_NPC_LOOT = 3;
+    private static final int TAG_LOOT = 4;
+    // More than any container or drop holds, anything larger is a damaged file
+    private static final int MAX_EVENT_ITEMS = 1 << 16;
+
+    interface Listener {
+        // placeholderTemplateId is -1 in recordings from before version 2
+        void onItem(int itemId, int note, int linkedNoteId, int placeholderTemplateId, String name);
+
+        void onInventory(long timestamp, int containerId, int location, int[] itemIds, int[] quantities);
+
+        void onNpcLoot(long timestamp, int npcId, int location, int[] itemIds, int[] quantities);
+
+        void onLoot(long timestamp, int lootType, int location, int[] itemIds, int[] quantities);
+    }
+
+    private EventRecording() {
+    }
+
+    /*
+     * Encodes events into an in-memory buffer, drained by whoever writes the file.
+     * Only touched from the client thread.
+     */
+    static final class Encoder {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(buffer);
+        private final BitSet definedItems = new BitSet();
+        private final LogIngestion.ItemLookup itemLookup;
+        private long previousTimestamp = 0;
+
+        Encoder(LogIngestion.ItemLookup itemLookup) {
+            this.itemLookup = itemLookup;
+            try {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+            } catch (IOException e) {
+                // Can't happen writing to memory
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void inventory(long timestamp, int containerId, int location, int[] itemIds, int[] quantities) {
+            event(TAG_INVENTORY, timestamp, containerId, location, itemIds, quantities, 1);
+        }
+
+        void npcLoot(long timestamp, int npcId, int location, int[] itemIds, int[] quantities) {
+            event(TAG_NPC_LOOT, timestamp, npcId, location, itemIds, quantities, 0);
+        }
+
+        void loot(long timestamp, int lootType, int location, int[] itemIds, int[] quantities) {
+            event(TAG_LOOT, timestamp, lootType, location, itemIds, quantities, 0);
+        }
+
+        int size() {
+            return buffer.size();
+        }
+
+        // Everything encoded since the last drain
+        byte[] drain() {
+            byte[] bytes = buffer.toByteArray();
+            buffer.reset();
+            return bytes;
+        }
+
+        // idOffset lets empty slots (-1) be written as a varint
+        private void event(int tag, long timestamp, int source, int location, int[] itemIds, int[] quantities, int idOffset) {
+            try {
+                for (int itemId : itemIds) {
+                    define(itemId);
+                }
+                out.writeByte(tag);
+                BinarySnapshot.writeVarLong(out, BinarySnapshot.zigzag(timestamp - previousTimestamp));
+                previousTimestamp = timestamp;
+                BinarySnapshot.writeVarLong(out, source);
+                out.writeInt(location);
+                BinarySnapshot.writeVarLong(out, itemIds.length);
+                for (int i = 0; i < itemIds.length; i++) {
+                    BinarySnapshot.writeVarLong(out, itemIds[i] + idOffset);
+                    BinarySnapshot.writeVarLong(out, quantities[i]);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void define(int itemId) throws IOException {
+            if (itemId < 0 || definedItems.get(itemId)) {
+                return;
+            }
+            definedItems.set(itemId);
+            ItemComposition itemComposition = itemLookup.getItemComposition(itemId);
+            out.writeByte(TAG_ITEM);
+            BinarySnapshot.writeVarLong(out, itemId);
+            BinarySnapshot.writeVarLong(out, itemComposition.getNote() + 1);
+            BinarySnapshot.writeVarLong(out, itemComposition.getLinkedNoteId() + 1);
+            out.writeUTF(itemComposition.getName());
+            BinarySnapshot.writeVarLong(out, itemComposition.getPlaceholderTemplateId() + 1);
+        }
+    }
+
+    // Returns the number of events read, stops quietly at a truncated last record
+    static int read(InputStream inputStream, Listener listener) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an item event recording");
+        }
+        int version = in.readUnsignedByte();
+        if (version > VERSION) {
+            throw new IOException("Item event recording version " + version + " is newer than this plugin");
+        }
+        int events = 0;
+        long timestamp = 0;
+        while (true) {
+            int tag = in.read();
+            if (tag == -1) {
+                return events;
+            }
+            try {
+                switch (tag) {
+                    case TAG_ITEM: {
+                        int itemId = (int) BinarySnapshot.readVarLong(in);
+                        int note = (int) BinarySnapshot.readVarLong(in) - 1;
+                        int linkedNoteId = (int) BinarySnapshot.readVarLong(in) - 1;
+                        String name = in.readUTF();
+                        int placeholderTemplateId = version >= 2 ? (int) BinarySnapshot.readVarLong(in) - 1 : -1;
+                        listener.onItem(itemId, note, linkedNoteId, placeholderTemplateId, name);
+                        break;
+                    }
+                    case TAG_INVENTORY:
+                    case TAG_NPC_LOOT:
+                    case TAG_LOOT: {
+                        timestamp += BinarySnapshot.unzigzag(BinarySnapshot.readVarLong(in));
+                        int source = (int) BinarySnapshot.readVarLong(in);
+                        int location = in.readInt();
+                        long count = BinarySnapshot.readVarLong(in);
+                        if (count > MAX_EVENT_ITEMS) {
+                            throw new IOException("Damaged item event recording");
+                        }
+                        int idOffset = tag == TAG_INVENTORY ? 1 : 0;
+                        int[] itemIds = new int[(int) count];
+                        int[] quantities = new int[(int) count];
+                        for (int i = 0; i < count; i++) {
+                            itemIds[i] = (int) BinarySnapshot.readVarLong(in) - idOffset;
+                            quantities[i] = (int) BinarySnapshot.readVarLong(in);
+                        }
+                        if (tag == TAG_INVENTORY) {
+                            listener.onInventory(timestamp, source, location, itemIds, quantities);
+                        } else if (tag == TAG_NPC_LOOT) {
+                            listener.onNpcLoot(timestamp, source, location, itemIds, quantities);
+                        } else {
+                            listener.onLoot(timestamp, source, location, itemIds, quantities);
+                        }
+                        events++;
+                        break;
+                    }
+                    default:
+                        throw new IOException("Unknown record " + tag + " in item event recording");
+                }
+            } catch (EOFException e) {
+                return events;
+            }
+        }
+    }
+}
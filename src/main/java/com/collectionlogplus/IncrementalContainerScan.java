@@ -0,0 +1,83 @@
+package com.collectionlogplus;
+
+import net.runelite.api.Item;
+
+import java.util.Arrays;
+
+/*
+ * Slot diff for containers too large to walk on every change, the bank mostly.
+ * A change only keeps the new contents, each scan compares a window of slots against what was
+ * last seen there and moves on, so a full pass is spread over several ticks. A change during a
+ * pass starts a new one from where the cursor is.
+ * Only touched from the client thread.
+ */
+class IncrementalContainerScan {
+    private Item[] items = new Item[0];
+    private int[] slotItemIds = new int[0];
+    private int cursor = 0;
+    // Slots still to compare before the last change has been fully seen
+    private int remaining = 0;
+    private int[] changedItemIds = new int[0];
+
+    void update(Item[] items) {
+        this.items = items;
+        if (slotItemIds.length < items.length) {
+            int previousLength = slotItemIds.length;
+            slotItemIds = Arrays.copyOf(slotItemIds, items.length);
+            Arrays.fill(slotItemIds, previousLength, items.length, -1);
+        }
+        remaining = slotItemIds.length;
+    }
+
+    // Compares up to maxSlots slots, returns how many now hold a different item
+    int scan(int maxSlots) {
+        int slots = Math.min(remaining, maxSlots);
+        if (changedItemIds.length < slots) {
+            changedItemIds = new int[slots];
+        }
+        int changedCount = 0;
+        for (int i = 0; i < slots; i++) {
+            if (cursor >= slotItemIds.length) {
+                cursor = 0;
+            }
+            // Slots past the end of a shrunk container are now empty
+            int itemId = cursor < items.length ? items[cursor].getId() : -1;
+            if (itemId != slotItemIds[cursor]) {
+                slotItemIds[cursor] = itemId;
+                if (itemId != -1) {
+                    changedItemIds[changedCount++] = itemId;
+                }
+            }
+            cursor++;
+        }
+        remaining -= slots;
+        return changedCount;
+    }
+
+    // The contents as of the last update
+    Item[] items() {
+        return items;
+    }
+
+    int changedItemId(int index) {
+        return changedItemIds[index];
+    }
+
+    boolean isPending() {
+        return remaining > 0;
+    }
+
+    // Forgets the contents, the next change is compared against an empty container
+    void reset() {
+        items = new Item[0];
+        Arrays.fill(slotItemIds, -1);
+        cursor = 0;
+        remaining = 0;
+    }
+
+    // Goes over the current contents again as if every slot had changed
+    void rescan() {
+        Arrays.fill(slotItemIds, -1);
+        remaining = slotItemIds.length;
+    }
+}
@@ -0,0 +1,140 @@
+package com.collectionlogplus;
+
+import net.runelite.api.Item;
+
+import java.util.Arrays;
+
+/*
+ * Last seen item id and quantity per container slot, used to only look at slots that changed.
+ */
+class InventorySnapshot {
+    private int[] slotItemIds = new int[0];
+    private int[] slotQuantities = new int[0];
+    private int[] changedItemIds = new int[0];
+    private int changedCount = 0;
+    // Net quantity change per item id over the last update, only the positive ones are kept
+    private int[] gainItemIds = new int[0];
+    private long[] gainQuantities = new long[0];
+    private int gainCount = 0;
+    // The negative ones, as positive quantities
+    private int[] lossItemIds = new int[0];
+    private long[] lossQuantities = new long[0];
+    private int lossCount = 0;
+    // The first update after a reset only records what is there, nothing was gained
+    private boolean hasBaseline = false;
+
+    // Diffs against the previous inventory, returns how many slots now hold a different item
+    int update(Item[] items) {
+        if (slotItemIds.length < items.length) {
+            int previousLength = slotItemIds.length;
+            slotItemIds = Arrays.copyOf(slotItemIds, items.length);
+            slotQuantities = Arrays.copyOf(slotQuantities, items.length);
+            Arrays.fill(slotItemIds, previousLength, items.length, -1);
+            changedItemIds = new int[items.length];
+            // Each changed slot touches at most two item ids
+            gainItemIds = new int[items.length * 2];
+            gainQuantities = new long[items.length * 2];
+            lossItemIds = new int[items.length * 2];
+            lossQuantities = new long[items.length * 2];
+        }
+        changedCount = 0;
+        gainCount = 0;
+        for (int slot = 0; slot < items.length; slot++) {
+            int itemId = items[slot].getId();
+            int quantity = itemId == -1 ? 0 : items[slot].getQuantity();
+            if (itemId == slotItemIds[slot] && quantity == slotQuantities[slot]) {
+                continue;
+            }
+            if (slotItemIds[slot] != -1) {
+                addChange(slotItemIds[slot], -slotQuantities[slot]);
+            }
+            if (itemId != -1) {
+                addChange(itemId, quantity);
+                if (itemId != slotItemIds[slot]) {
+                    changedItemIds[changedCount++] = itemId;
+                }
+            }
+            slotItemIds[slot] = itemId;
+            slotQuantities[slot] = quantity;
+        }
+        // Slots past the end of a shrunk container are now empty, what they held was lost
+        for (int slot = items.length; slot < slotItemIds.length; slot++) {
+            if (slotItemIds[slot] != -1) {
+                addChange(slotItemIds[slot], -slotQuantities[slot]);
+            }
+            slotItemIds[slot] = -1;
+            slotQuantities[slot] = 0;
+        }
+
+        // Moving items between slots nets out, only keep what there is more or less of
+        int kept = 0;
+        lossCount = 0;
+        for (int i = 0; i < gainCount; i++) {
+            if (gainQuantities[i] > 0) {
+                gainItemIds[kept] = gainItemIds[i];
+                gainQuantities[kept] = gainQuantities[i];
+                kept++;
+            } else if (gainQuantities[i] < 0) {
+                lossItemIds[lossCount] = gainItemIds[i];
+                lossQuantities[lossCount] = -gainQuantities[i];
+                lossCount++;
+            }
+        }
+        gainCount = hasBaseline ? kept : 0;
+        lossCount = hasBaseline ? lossCount : 0;
+        hasBaseline = true;
+        return changedCount;
+    }
+
+    // Item id that newly appeared in a slot during the last update
+    int changedItemId(int index) {
+        return changedItemIds[index];
+    }
+
+    // Item ids there are more of after the last update
+    int gainCount() {
+        return gainCount;
+    }
+
+    int gainItemId(int index) {
+        return gainItemIds[index];
+    }
+
+    long gainQuantity(int index) {
+        return gainQuantities[index];
+    }
+
+    // Item ids there are less of after the last update
+    int lossCount() {
+        return lossCount;
+    }
+
+    int lossItemId(int index) {
+        return lossItemIds[index];
+    }
+
+    long lossQuantity(int index) {
+        return lossQuantities[index];
+    }
+
+    void reset() {
+        Arrays.fill(slotItemIds, -1);
+        Arrays.fill(slotQuantities, 0);
+        changedCount = 0;
+        gainCount = 0;
+        lossCount = 0;
+        hasBaseline = false;
+    }
+
+    private void addChange(int itemId, long quantity) {
+        for (int i = 0; i < gainCount; i++) {
+            if (gainItemIds[i] == itemId) {
+                gainQuantities[i] += quantity;
+                return;
+            }
+        }
+        gainItemIds[gainCount] = itemId;
+        gainQuantities[gainCount] = quantity;
+        gainCount++;
+    }
+}
@@ -0,0 +1,134 @@
+package com.collectionlogplus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/*
+ * Every item that can count towards completing the log, for one game cache revision.
+ * Noted and placeholder variants are left out, they are logged under the unnoted item or as a
+ * bank note. Entries are ordered by category then name, an item's position in that order is
+ * its catalog index.
+ *
+ * Saved as catalog-<revision>.bin:
+ *   magic "CLPC" (4 bytes), version (1 byte), revision (int), entry count (int)
+ *   per entry: item id (int), category ordinal (byte), name (UTF)
+ */
+final class ItemCatalog {
+    enum Category {
+        FREE("Free to play"),
+        MEMBERS("Members");
+
+        private final String label;
+
+        Category(String label) {
+            this.label = label;
+        }
+
+        String getLabel() {
+            return label;
+        }
+    }
+
+    private static final int MAGIC = 0x434C5043;
+    static final int VERSION = 1;
+
+    private final int revision;
+    private final int[] itemIds;
+    private final String[] names;
+    private final Category[] categories;
+    private final int[] categorySizes = new int[Category.values().length];
+    // Catalog index by item id, -1 for items not in the catalog
+    private final int[] indexByItemId;
+
+    ItemCatalog(int revision, int[] itemIds, String[] names, Category[] categories) {
+        this.revision = revision;
+        this.itemIds = itemIds;
+        this.names = names;
+        this.categories = categories;
+        int maxItemId = -1;
+        for (int index = 0; index < itemIds.length; index++) {
+            maxItemId = Math.max(maxItemId, itemIds[index]);
+            categorySizes[categories[index].ordinal()]++;
+        }
+        indexByItemId = new int[maxItemId + 1];
+        Arrays.fill(indexByItemId, -1);
+        for (int index = 0; index < itemIds.length; index++) {
+            indexByItemId[itemIds[index]] = index;
+        }
+    }
+
+    int revision() {
+        return revision;
+    }
+
+    int size() {
+        return itemIds.length;
+    }
+
+    int categorySize(Category category) {
+        return categorySizes[category.ordinal()];
+    }
+
+    int indexOf(int itemId) {
+        return itemId >= 0 && itemId < indexByItemId.length ? indexByItemId[itemId] : -1;
+    }
+
+    int itemId(int index) {
+        return itemIds[index];
+    }
+
+    String name(int index) {
+        return names[index];
+    }
+
+    Category category(int index) {
+        return categories[index];
+    }
+
+    static void write(OutputStream outputStream, ItemCatalog catalog) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(catalog.revision);
+        out.writeInt(catalog.size());
+        for (int index = 0; index < catalog.size(); index++) {
+            out.writeInt(catalog.itemIds[index]);
+            out.writeByte(catalog.categories[index].ordinal());
+            out.writeUTF(catalog.names[index]);
+        }
+        out.flush();
+    }
+
+    // null if the file is for another revision or isn't a catalog this version can read
+    static ItemCatalog read(InputStream inputStream, int revision) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+        if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION || in.readInt() != revision) {
+            return null;
+        }
+        int size = in.readInt();
+        // Nowhere near this many items in the game, the file is damaged
+        if (size < 0 || size > 1 << 20) {
+            return null;
+        }
+        int[] itemIds = new int[size];
+        String[] names = new String[size];
+        Category[] categories = new Category[size];
+        Category[] values = Category.values();
+        for (int index = 0; index < size; index++) {
+            itemIds[index] = in.readInt();
+            int category = in.readUnsignedByte();
+            if (itemIds[index] < 0 || category >= values.length) {
+                return null;
+            }
+            categories[index] = values[category];
+            names[index] = in.readUTF();
+        }
+        return new ItemCatalog(revision, itemIds, names, categories);
+    }
+}
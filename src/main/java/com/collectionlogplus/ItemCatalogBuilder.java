@@ -0,0 +1,81 @@
+package com.collectionlogplus;
+
+import net.runelite.api.ItemComposition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * Walks the item definitions a chunk at a time to build an ItemCatalog. Definitions can only
+ * be read on the client thread, so the plugin calls step once per client cycle until it is done
+ * rather than reading all of them in one frame.
+ * Tradeable items stand in for obtainable ones, most untradeables are quest states, cosmetic
+ * variants and other things the log can't be expected to hold.
+ */
+class ItemCatalogBuilder {
+    private final LogIngestion.ItemLookup itemLookup;
+    private final int revision;
+    private final int itemCount;
+    private int nextItemId = 0;
+    private final List<Integer> itemIds = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<ItemCatalog.Category> categories = new ArrayList<>();
+
+    ItemCatalogBuilder(LogIngestion.ItemLookup itemLookup, int revision, int itemCount) {
+        this.itemLookup = itemLookup;
+        this.revision = revision;
+        this.itemCount = itemCount;
+    }
+
+    // Reads up to maxItems definitions, returns true once every one has been read
+    boolean step(int maxItems) {
+        int end = Math.min(itemCount, nextItemId + maxItems);
+        for (; nextItemId < end; nextItemId++) {
+            int itemId = nextItemId;
+            // Noted items and placeholders canonicalize to the item they stand for
+            if (itemLookup.canonicalize(itemId) != itemId) {
+                continue;
+            }
+            ItemComposition itemComposition = itemLookup.getItemComposition(itemId);
+            String name = itemComposition.getName();
+            if (!itemComposition.isTradeable()
+                    || itemComposition.getNote() != -1
+                    || itemComposition.getPlaceholderTemplateId() != -1
+                    || name == null
+                    || name.isEmpty()
+                    || name.equalsIgnoreCase("null")) {
+                continue;
+            }
+            itemIds.add(itemId);
+            names.add(name);
+            categories.add(itemComposition.isMembers() ? ItemCatalog.Category.MEMBERS : ItemCatalog.Category.FREE);
+        }
+        return nextItemId >= itemCount;
+    }
+
+    // Percentage of the definitions read
+    int progress() {
+        return itemCount == 0 ? 100 : (int) (nextItemId * 100L / itemCount);
+    }
+
+    ItemCatalog build() {
+        Integer[] order = new Integer[itemIds.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer, ItemCatalog.Category>comparing(categories::get)
+                .thenComparing(names::get, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(itemIds::get));
+        int[] sortedItemIds = new int[order.length];
+        String[] sortedNames = new String[order.length];
+        ItemCatalog.Category[] sortedCategories = new ItemCatalog.Category[order.length];
+        for (int index = 0; index < order.length; index++) {
+            sortedItemIds[index] = itemIds.get(order[index]);
+            sortedNames[index] = names.get(order[index]);
+            sortedCategories[index] = categories.get(order[index]);
+        }
+        return new ItemCatalog(revision, sortedItemIds, sortedNames, sortedCategories);
+    }
+}
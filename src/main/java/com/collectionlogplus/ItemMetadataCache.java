@@ -0,0 +1,125 @@
+package com.collectionlogplus;
+
+import net.runelite.api.ItemComposition;
+
+import java.util.Arrays;
+
+/*
+ * Item id -> log id, canonical id and display name, so the event handlers and the log interface
+ * don't look up an item composition for every item they touch.
+ * Open addressing on the item id with linear probing over primitive arrays: a lookup is a few
+ * array reads and compares. Entries are never evicted, there is at most one per item in the game
+ * and only items that were actually seen are added, so a large log is looked up once.
+ * Names are interned so the store and every view of it share one copy.
+ * Only touched from the client thread, compositions can only be read there.
+ */
+class ItemMetadataCache {
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final int EMPTY = -1;
+    // Log id of items that are never logged, placeholders in the bank stand for items not held
+    static final int NOT_LOGGED = -1;
+    static final String BANK_NOTE_NAME = "Bank note";
+
+    private final LogIngestion.ItemLookup itemLookup;
+    private int[] itemIds = new int[INITIAL_CAPACITY];
+    private int[] logIds = new int[INITIAL_CAPACITY];
+    private int[] canonicalIds = new int[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int size = 0;
+
+    ItemMetadataCache(LogIngestion.ItemLookup itemLookup) {
+        this.itemLookup = itemLookup;
+        Arrays.fill(itemIds, EMPTY);
+    }
+
+    // Id the item is logged under, all banknotes are logged as the same item, NOT_LOGGED for placeholders
+    int logId(int itemId) {
+        // Looked up first, it may grow the arrays
+        int slot = slot(itemId);
+        return logIds[slot];
+    }
+
+    // Name shown in the log, "Bank note" for every noted item
+    String name(int itemId) {
+        int slot = slot(itemId);
+        return names[slot];
+    }
+
+    // Unnoted, non-placeholder id, what acquisitions are counted under
+    int canonicalize(int itemId) {
+        int slot = slot(itemId);
+        return canonicalIds[slot];
+    }
+
+    private int slot(int itemId) {
+        int slot = probe(itemIds, itemId);
+        if (itemIds[slot] == itemId) {
+            return slot;
+        }
+        // Kept at most half full so probes stay short
+        if (size + 1 > itemIds.length / 2) {
+            grow();
+            slot = probe(itemIds, itemId);
+        }
+        load(slot, itemId);
+        size++;
+        return slot;
+    }
+
+    // Slot holding the item, or the empty slot it would go in
+    private static int probe(int[] itemIds, int itemId) {
+        int mask = itemIds.length - 1;
+        // Item ids are mostly sequential, spread them so neighbours don't form long runs. The top
+        // bits of the product are the best mixed, take as many as the table needs
+        int slot = (itemId * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(mask);
+        while (itemIds[slot] != EMPTY && itemIds[slot] != itemId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int capacity = itemIds.length * 2;
+        int[] grownItemIds = new int[capacity];
+        int[] grownLogIds = new int[capacity];
+        int[] grownCanonicalIds = new int[capacity];
+        String[] grownNames = new String[capacity];
+        Arrays.fill(grownItemIds, EMPTY);
+        for (int slot = 0; slot < itemIds.length; slot++) {
+            if (itemIds[slot] == EMPTY) {
+                continue;
+            }
+            int grownSlot = probe(grownItemIds, itemIds[slot]);
+            grownItemIds[grownSlot] = itemIds[slot];
+            grownLogIds[grownSlot] = logIds[slot];
+            grownCanonicalIds[grownSlot] = canonicalIds[slot];
+            grownNames[grownSlot] = names[slot];
+        }
+        itemIds = grownItemIds;
+        logIds = grownLogIds;
+        canonicalIds = grownCanonicalIds;
+        names = grownNames;
+    }
+
+    private void load(int slot, int itemId) {
+        if (itemId == LogIngestion.BANK_NOTE_ITEM_ID) {
+            logIds[slot] = itemId;
+            canonicalIds[slot] = itemId;
+            names[slot] = BANK_NOTE_NAME;
+        } else {
+            ItemComposition itemComposition = itemLookup.getItemComposition(itemId);
+            if (itemComposition.getNote() != -1) {
+                logIds[slot] = LogIngestion.BANK_NOTE_ITEM_ID;
+                names[slot] = BANK_NOTE_NAME;
+            } else if (itemComposition.getPlaceholderTemplateId() != -1) {
+                logIds[slot] = NOT_LOGGED;
+                names[slot] = itemComposition.getName().intern();
+            } else {
+                logIds[slot] = itemId;
+                names[slot] = itemComposition.getName().intern();
+            }
+            canonicalIds[slot] = itemLookup.canonicalize(itemId);
+        }
+        itemIds[slot] = itemId;
+    }
+}
@@ -3,11 +3,36 @@ package com.collectionlogplus;
 import lombok.Value;
 import net.runelite.api.coords.WorldPoint;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
 @Value
 public class LogEntry {
+    static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+
     int itemId;
     String name;
     String timestamp;
     WorldPoint worldPoint;
-}
 
+    static String formatTimestamp(long epochMillis) {
+        return TIMESTAMP_FORMAT.format(LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault()));
+    }
+
+    static long parseTimestamp(String timestamp) {
+        if (timestamp == null) {
+            return 0L;
+        }
+        try {
+            return LocalDateTime.parse(timestamp, TIMESTAMP_FORMAT)
+                    .atZone(ZoneId.systemDefault())
+                    .toInstant()
+                    .toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.collectionlogplus;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import net.runelite.api.coords.WorldPoint;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/*
+ * Streaming export and import of item logs as JSON Lines or CSV.
+ * Both run one entry at a time on a thread of their own, so memory use doesn't depend on the
+ * size of the file and a long one doesn't hold up threads the client shares. Imports hand
+ * records back in small batches and only read further once a batch has been merged.
+ */
+@Singleton
+class LogExchange {
+    private static final String CSV_HEADER = "item_id,name,obtained_at,x,y,plane";
+    private static final int IMPORT_BATCH_SIZE = 512;
+
+    private final Gson gson;
+    // Exits when idle, files are only exchanged when asked for
+    private final ThreadPoolExecutor exchangeThread = new ThreadPoolExecutor(
+            1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            new ThreadFactoryBuilder()
+                    .setNameFormat("collection-log-plus-exchange")
+                    .setDaemon(true)
+                    .build()
+    );
+
+    @Inject
+    LogExchange(Gson gson) {
+        this.gson = gson;
+        exchangeThread.allowCoreThreadTimeOut(true);
+    }
+
+    // Completes with the number of entries written
+    CompletableFuture<Integer> export(LogStore.Snapshot rows, Path target, LogExportFormat format) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Files.createDirectories(target.getParent());
+                try (BufferedWriter writer = Files.newBufferedWriter(target)) {
+                    if (format == LogExportFormat.CSV) {
+                        writer.write(CSV_HEADER);
+                        writer.newLine();
+                    }
+                    // Oldest first, like the journal
+                    for (int position = 0; position < rows.size(); position++) {
+                        int row = rows.rowByTime(position);
+                        if (format == LogExportFormat.CSV) {
+                            writeCsvRow(writer, rows, row);
+                        } else {
+                            gson.toJson(entry(rows, row), LogEntry.class, writer);
+                        }
+                        writer.newLine();
+                    }
+                }
+                return rows.size();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, exchangeThread);
+    }
+
+    /*
+     * Reads the file and passes its records to mergeBatch, reading the next batch once the last
+     * one has been merged. The format is picked by extension: .csv, .json for a logs.json from
+     * older versions, anything else is read as JSON Lines. Records for item ids at or past
+     * itemCount are skipped, the store sizes its id lookup by the largest id it holds.
+     */
+    CompletableFuture<ImportResult> importFile(Path source, int itemCount, Function<List<LogEntry>, CompletableFuture<Integer>> mergeBatch) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return new ImportReader(source, itemCount);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, exchangeThread).thenCompose(importReader -> importBatches(importReader, mergeBatch)
+                .whenCompleteAsync((result, e) -> importReader.close(), exchangeThread));
+    }
+
+    // No thread waits on a merge, the next read is queued when it completes
+    private CompletableFuture<ImportResult> importBatches(ImportReader importReader, Function<List<LogEntry>, CompletableFuture<Integer>> mergeBatch) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return importReader.nextBatch();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, exchangeThread).thenCompose(batch -> {
+            if (batch.isEmpty()) {
+                return CompletableFuture.completedFuture(importReader.result);
+            }
+            return mergeBatch.apply(batch).thenCompose(merged -> {
+                importReader.result.merged += merged;
+                return importBatches(importReader, mergeBatch);
+            });
+        });
+    }
+
+    private LogEntry parseJsonLine(String line) {
+        try {
+            return gson.fromJson(line, LogEntry.class);
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+
+    private static LogEntry parseCsvRow(String line) {
+        List<String> fields = splitCsv(line);
+        try {
+            WorldPoint worldPoint = null;
+            if (fields.size() >= 6 && !fields.get(3).isEmpty()) {
+                worldPoint = new WorldPoint(
+                        Integer.parseInt(fields.get(3)),
+                        Integer.parseInt(fields.get(4)),
+                        Integer.parseInt(fields.get(5))
+                );
+            }
+            return new LogEntry(
+                    Integer.parseInt(fields.get(0)),
+                    fields.size() > 1 && !fields.get(1).isEmpty() ? fields.get(1) : null,
+                    fields.size() > 2 ? fields.get(2) : null,
+                    worldPoint
+            );
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private static boolean isValid(LogEntry logEntry, int itemCount) {
+        return logEntry != null
+                && logEntry.getItemId() >= 0
+                && logEntry.getItemId() < itemCount
+                && LogEntry.parseTimestamp(logEntry.getTimestamp()) != 0L;
+    }
+
+    private static LogEntry entry(LogStore.Snapshot rows, int row) {
+        return new LogEntry(
+                rows.itemId(row),
+                rows.name(row),
+                LogEntry.formatTimestamp(rows.timestamp(row)),
+                LogStore.unpackLocation(rows.location(row))
+        );
+    }
+
+    private static void writeCsvRow(Writer writer, LogStore.Snapshot rows, int row) throws IOException {
+        writer.write(Integer.toString(rows.itemId(row)));
+        writer.write(',');
+        writer.write(quoteCsv(rows.name(row)));
+        writer.write(',');
+        writer.write(LogEntry.formatTimestamp(rows.timestamp(row)));
+        writer.write(',');
+        WorldPoint worldPoint = LogStore.unpackLocation(rows.location(row));
+        if (worldPoint != null) {
+            writer.write(worldPoint.getX() + "," + worldPoint.getY() + "," + worldPoint.getPlane());
+        } else {
+            writer.write(",,");
+        }
+    }
+
+    private static String quoteCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') == -1 && value.indexOf('"') == -1) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // Quoted fields may hold commas and doubled quotes, names never span lines
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // Pulls the valid records out of one import file, only used on the exchange thread
+    private final class ImportReader {
+        private final BufferedReader reader;
+        private final int itemCount;
+        private final boolean csv;
+        // Set for a legacy logs.json, one object keyed by item id
+        private final JsonReader legacyReader;
+        private boolean firstLine = true;
+        private final ImportResult result = new ImportResult();
+
+        private ImportReader(Path source, int itemCount) throws IOException {
+            String fileName = source.getFileName().toString().toLowerCase();
+            this.reader = Files.newBufferedReader(source);
+            this.itemCount = itemCount;
+            this.csv = fileName.endsWith(".csv");
+            if (fileName.endsWith(".json")) {
+                legacyReader = new JsonReader(reader);
+                try {
+                    if (legacyReader.peek() != JsonToken.BEGIN_OBJECT) {
+                        throw new IOException("Expected an object keyed by item id");
+                    }
+                    legacyReader.beginObject();
+                } catch (IOException e) {
+                    close();
+                    throw e;
+                } catch (IllegalStateException e) {
+                    close();
+                    throw new IOException("Unreadable item log snapshot", e);
+                }
+            } else {
+                legacyReader = null;
+            }
+        }
+
+        // Up to a batch of records, empty once the file has been read
+        private List<LogEntry> nextBatch() throws IOException {
+            List<LogEntry> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+            LogEntry logEntry;
+            while (batch.size() < IMPORT_BATCH_SIZE && (logEntry = nextRecord()) != null) {
+                batch.add(logEntry);
+            }
+            return batch;
+        }
+
+        // The next valid record, null at the end of the file
+        private LogEntry nextRecord() throws IOException {
+            while (true) {
+                LogEntry logEntry;
+                if (legacyReader != null) {
+                    try {
+                        if (!legacyReader.hasNext()) {
+                            return null;
+                        }
+                        legacyReader.nextName();
+                        logEntry = gson.fromJson(legacyReader, LogEntry.class);
+                    } catch (JsonParseException | IllegalStateException e) {
+                        throw new IOException("Unreadable item log snapshot", e);
+                    }
+                } else {
+                    String line = reader.readLine();
+                    if (line == null) {
+                        return null;
+                    }
+                    boolean header = firstLine && csv && line.startsWith("item_id");
+                    firstLine = false;
+                    if (header || line.trim().isEmpty()) {
+                        continue;
+                    }
+                    logEntry = csv ? parseCsvRow(line) : parseJsonLine(line);
+                }
+                if (isValid(logEntry, itemCount)) {
+                    result.read++;
+                    return logEntry;
+                }
+                result.unreadable++;
+            }
+        }
+
+        private void close() {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                // Only read from
+            }
+        }
+    }
+
+    static final class ImportResult {
+        private int read = 0;
+        private int merged = 0;
+        // Records that couldn't be parsed or are for items that don't exist
+        private int unreadable = 0;
+
+        int getRead() {
+            return read;
+        }
+
+        int getMerged() {
+            return merged;
+        }
+
+        int getUnreadable() {
+            return unreadable;
+        }
+    }
+}
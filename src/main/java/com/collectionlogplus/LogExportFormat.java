@@ -0,0 +1,23 @@
+package com.collectionlogplus;
+
+public enum LogExportFormat {
+    JSON_LINES("JSON Lines", "jsonl"),
+    CSV("CSV", "csv");
+
+    private final String name;
+    private final String extension;
+
+    LogExportFormat(String name, String extension) {
+        this.name = name;
+        this.extension = extension;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,177 @@
+package com.collectionlogplus;
+
+import net.runelite.api.Item;
+import net.runelite.api.ItemComposition;
+import net.runelite.client.game.ItemStack;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Decides which items from each acquisition source are new to the log, and counts acquisitions
+ * in the history. Every source's items go through the same check and end up at the same
+ * UnlockListener, which keeps each item once. Doesn't touch the client, item definitions come
+ * through an ItemLookup behind an ItemMetadataCache so recorded events can be replayed through
+ * it offline.
+ * Only touched from the client thread.
+ */
+class LogIngestion {
+    static final int BANK_NOTE_ITEM_ID = 799;
+    // Bank slots compared per tick, a full bank is covered in a few ticks
+    static final int BANK_SLOTS_PER_TICK = 256;
+
+    interface ItemLookup {
+        ItemComposition getItemComposition(int itemId);
+
+        // Unnoted, non-placeholder id
+        int canonicalize(int itemId);
+    }
+
+    interface UnlockListener {
+        // Called with the item already collapsed to its log id, the store doesn't have it yet
+        void onUnlock(int itemId, String name);
+    }
+
+    private final ItemMetadataCache itemMetadata;
+    private final UnlockListener unlockListener;
+    private final Map<AcquisitionSource, InventorySnapshot> containerSnapshots = new EnumMap<>(AcquisitionSource.class);
+    private final IncrementalContainerScan bankScan = new IncrementalContainerScan();
+    // The bank as it was before its first change this tick, null if it hasn't changed
+    private Item[] bankAtTickStart = null;
+
+    LogIngestion(ItemMetadataCache itemMetadata, UnlockListener unlockListener) {
+        this.itemMetadata = itemMetadata;
+        this.unlockListener = unlockListener;
+        containerSnapshots.put(AcquisitionSource.INVENTORY, new InventorySnapshot());
+        containerSnapshots.put(AcquisitionSource.EQUIPMENT, new InventorySnapshot());
+    }
+
+    // history may be null when it isn't tracked
+    void onContainerChanged(AcquisitionSource source, Item[] items, LogStore store, AcquisitionHistory history, long now) {
+        if (source == AcquisitionSource.BANK) {
+            if (bankAtTickStart == null) {
+                bankAtTickStart = bankScan.items();
+            }
+            // Looked at over the next ticks
+            bankScan.update(items);
+            return;
+        }
+        InventorySnapshot snapshot = containerSnapshots.get(source);
+        // Only items that newly appeared in a slot can be new to the log
+        int changedSlots = snapshot.update(items);
+        for (int i = 0; i < changedSlots; i++) {
+            int itemId = snapshot.changedItemId(i);
+            if (!store.contains(itemId)) {
+                check(itemId, store);
+            }
+        }
+        if (history == null) {
+            return;
+        }
+        if (source.countsAcquisitions()) {
+            for (int i = 0; i < snapshot.gainCount(); i++) {
+                history.recordInventoryGain(
+                        itemMetadata.canonicalize(snapshot.gainItemId(i)),
+                        snapshot.gainQuantity(i),
+                        now
+                );
+            }
+        } else {
+            // Unequipped items turn up in the inventory
+            for (int i = 0; i < snapshot.lossCount(); i++) {
+                history.recordTransferOut(itemMetadata.canonicalize(snapshot.lossItemId(i)), snapshot.lossQuantity(i));
+            }
+        }
+    }
+
+    void onLoot(AcquisitionSource source, Collection<ItemStack> items, LogStore store, AcquisitionHistory history, long now) {
+        for (ItemStack item : items) {
+            if (history != null && source.countsAcquisitions()) {
+                history.recordLoot(itemMetadata.canonicalize(item.getId()), item.getQuantity(), now);
+            }
+            check(item.getId(), store);
+        }
+    }
+
+    /*
+     * Carries on with containers that are looked at a window at a time, and counts the tick's
+     * inventory gains in the history less anything withdrawn or unequipped.
+     */
+    void onTick(LogStore store, AcquisitionHistory history) {
+        if (history != null) {
+            if (bankAtTickStart != null && history.hasPendingGains()) {
+                recordWithdrawals(history);
+            }
+            history.commitTick();
+        }
+        bankAtTickStart = null;
+        if (!bankScan.isPending()) {
+            return;
+        }
+        int changedSlots = bankScan.scan(BANK_SLOTS_PER_TICK);
+        for (int i = 0; i < changedSlots; i++) {
+            int itemId = bankScan.changedItemId(i);
+            if (!store.contains(itemId)) {
+                check(itemId, store);
+            }
+        }
+    }
+
+    // Only on ticks where the bank changed and the inventory gained, so only for withdrawals and deposits
+    private void recordWithdrawals(AcquisitionHistory history) {
+        Map<Integer, Long> withdrawn = new HashMap<>();
+        addBankQuantities(withdrawn, bankAtTickStart, 1, history);
+        addBankQuantities(withdrawn, bankScan.items(), -1, history);
+        for (Map.Entry<Integer, Long> entry : withdrawn.entrySet()) {
+            if (entry.getValue() > 0) {
+                history.recordTransferOut(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void addBankQuantities(Map<Integer, Long> quantities, Item[] items, int sign, AcquisitionHistory history) {
+        for (Item item : items) {
+            if (item.getId() == -1 || item.getQuantity() == 0) {
+                continue;
+            }
+            int itemId = itemMetadata.canonicalize(item.getId());
+            if (history.isPendingGain(itemId)) {
+                quantities.merge(itemId, (long) sign * item.getQuantity(), Long::sum);
+            }
+        }
+    }
+
+    // Forgets every container's contents, used when the profile changes
+    void reset() {
+        for (AcquisitionSource source : AcquisitionSource.values()) {
+            reset(source);
+        }
+    }
+
+    void reset(AcquisitionSource source) {
+        if (source == AcquisitionSource.BANK) {
+            bankScan.reset();
+            bankAtTickStart = null;
+        } else if (containerSnapshots.containsKey(source)) {
+            containerSnapshots.get(source).reset();
+        }
+    }
+
+    // Checks every container in full again, used once a profile's logs have loaded
+    void recheck() {
+        for (InventorySnapshot snapshot : containerSnapshots.values()) {
+            snapshot.reset();
+        }
+        bankScan.rescan();
+    }
+
+    private void check(int itemId, LogStore store) {
+        // treat all banknotes as the same item
+        int logId = itemMetadata.logId(itemId);
+        if (logId != ItemMetadataCache.NOT_LOGGED && !store.contains(logId)) {
+            unlockListener.onUnlock(logId, itemMetadata.name(itemId));
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.collectionlogplus;
+
+import net.runelite.api.FontID;
+import net.runelite.api.widgets.JavaScriptCallback;
+import net.runelite.api.widgets.Widget;
+import net.runelite.api.widgets.WidgetType;
+
+import java.util.List;
+
+/*
+ * Virtualized list of log rows inside the skill guide entries container.
+ * Only a fixed pool of row widgets is created, enough to cover the viewport plus some overscan,
+ * and the pool is rebound to different rows as the container is scrolled. Row heights need every
+ * row's texts, so they are only measured again when the rows' layout key or the width changes.
+ */
+class LogListView {
+    interface Rows {
+        int size();
+
+        // -1 for rows without an item sprite
+        int itemId(int index);
+
+        String[] texts(int index);
+
+        // Equal from one render to the next while no row's texts have changed, so the row heights
+        // measured last time still hold. null to measure every time.
+        default Object layoutKey() {
+            return null;
+        }
+    }
+
+    interface RowActionListener {
+        void onRowAction(int action, int index);
+    }
+
+    private static final int ODD_OPACITY = 200;
+    private static final int EVEN_OPACITY = 220;
+    private static final int PADDING = 12;
+    private static final int LINE_HEIGHT = 12;
+    private static final int ITEM_SIZE = PADDING + LINE_HEIGHT + PADDING;
+    private static final int MIN_ROW_HEIGHT = PADDING + LINE_HEIGHT + PADDING;
+    private static final int TEXT_COLOR = 0xff981f;
+    // Rows bound above and below the viewport so small scrolls don't need a rebind
+    private static final int OVERSCAN = 3;
+
+    // Kept across renders so re-opening the log doesn't re-measure unchanged rows
+    private final TextLayout textLayout = new TextLayout();
+    private Widget container;
+    private Rows rows;
+    private Widget[] boxes = new Widget[0];
+    private Widget[] texts = new Widget[0];
+    private Widget[] sprites = new Widget[0];
+    // rowOffsets[i] is the y of row i, rowOffsets[size] is the full list height
+    private int[] rowOffsets = new int[1];
+    // What rowOffsets were measured for, kept through clear() for the next render
+    private Object layoutKey = null;
+    private int layoutWidth = -1;
+    private int boundFirstRow = -1;
+    private String[] rowActions = new String[0];
+    private RowActionListener rowActionListener = null;
+
+    // Right click options on every row, the listener gets the chosen action and the row's list index
+    void setRowActions(String[] rowActions, RowActionListener rowActionListener) {
+        this.rowActions = rowActions;
+        this.rowActionListener = rowActionListener;
+    }
+
+    // Builds the row pool into an empty container and returns the full scroll height
+    int render(Widget container, Rows rows) {
+        this.container = container;
+        this.rows = rows;
+        this.boundFirstRow = -1;
+
+        int rowCount = rows.size();
+        int poolSize = Math.min(rowCount, container.getHeight() / MIN_ROW_HEIGHT + 1 + 2 * OVERSCAN);
+        boxes = new Widget[poolSize];
+        texts = new Widget[poolSize];
+        sprites = new Widget[poolSize];
+        for (int slot = 0; slot < poolSize; slot++) {
+            createSlot(slot);
+        }
+        if (poolSize == 0) {
+            rowOffsets = new int[1];
+            layoutKey = null;
+            return 0;
+        }
+
+        textLayout.setContainer(texts[0].getFont(), container.getWidth());
+        Object key = rows.layoutKey();
+        if (key == null || !key.equals(layoutKey) || container.getWidth() != layoutWidth || rowOffsets.length != rowCount + 1) {
+            rowOffsets = new int[rowCount + 1];
+            for (int row = 0; row < rowCount; row++) {
+                int lines = textLayout.lineCount(rows.texts(row), textWidth(row));
+                rowOffsets[row + 1] = rowOffsets[row] + PADDING + lines * LINE_HEIGHT + PADDING;
+            }
+            layoutKey = key;
+            layoutWidth = container.getWidth();
+        }
+
+        bind(container.getScrollY());
+        return rowOffsets[rowCount];
+    }
+
+    // Widgets in the row pool, a box, text and sprite per slot
+    int widgetCount() {
+        return boxes.length * 3;
+    }
+
+    // Rebinds the pool if the container has scrolled to a different set of rows
+    void onScroll() {
+        if (container == null || boxes.length == 0) {
+            return;
+        }
+        bind(container.getScrollY());
+    }
+
+    void clear() {
+        container = null;
+        rows = null;
+        boxes = new Widget[0];
+        texts = new Widget[0];
+        sprites = new Widget[0];
+        boundFirstRow = -1;
+    }
+
+    private void createSlot(int slot) {
+        Widget logRowBox = container.createChild(-1, WidgetType.RECTANGLE);
+        logRowBox.setFilled(true);
+        logRowBox.setBorderType(0);
+        logRowBox.setWidthMode(1);
+        if (rowActionListener != null) {
+            for (int action = 0; action < rowActions.length; action++) {
+                logRowBox.setAction(action, rowActions[action]);
+            }
+            final RowActionListener listener = rowActionListener;
+            logRowBox.setOnOpListener((JavaScriptCallback) event -> {
+                if (boundFirstRow >= 0) {
+                    listener.onRowAction(event.getOp() - 1, boundFirstRow + slot);
+                }
+            });
+            logRowBox.setHasListener(true);
+        }
+        logRowBox.revalidate();
+        boxes[slot] = logRowBox;
+
+        Widget logRowText = container.createChild(-1, WidgetType.TEXT);
+        logRowText.setTextColor(TEXT_COLOR);
+        logRowText.setLineHeight(LINE_HEIGHT);
+        logRowText.setTextShadowed(true);
+        logRowText.setFontId(FontID.PLAIN_12);
+        logRowText.setWidthMode(1);
+        logRowText.revalidate();
+        texts[slot] = logRowText;
+
+        Widget logRowItem = container.createChild(-1, WidgetType.GRAPHIC);
+        logRowItem.setItemQuantity(-1);
+        logRowItem.setOriginalX(PADDING);
+        logRowItem.setOriginalWidth(ITEM_SIZE);
+        logRowItem.setOriginalHeight(ITEM_SIZE - 2);
+        logRowItem.revalidate();
+        sprites[slot] = logRowItem;
+    }
+
+    private void bind(int scrollY) {
+        int rowCount = rowOffsets.length - 1;
+        int firstRow = Math.max(0, rowAt(scrollY) - OVERSCAN);
+        // Keep the pool fully used at the bottom of the list
+        firstRow = Math.min(firstRow, Math.max(0, rowCount - boxes.length));
+        if (firstRow == boundFirstRow) {
+            return;
+        }
+        boundFirstRow = firstRow;
+        for (int slot = 0; slot < boxes.length; slot++) {
+            int row = firstRow + slot;
+            if (row < rowCount) {
+                bindRow(slot, row);
+            } else {
+                boxes[slot].setHidden(true);
+                texts[slot].setHidden(true);
+                sprites[slot].setHidden(true);
+            }
+        }
+    }
+
+    private void bindRow(int slot, int row) {
+        int y = rowOffsets[row];
+        int boxHeight = rowOffsets[row + 1] - y;
+        int itemId = rows.itemId(row);
+        boolean hasItem = itemId > -1;
+        int textX = PADDING + (hasItem ? ITEM_SIZE : 0);
+
+        List<String> logText = textLayout.buildLogTextLines(rows.texts(row), textWidth(row));
+        int maxLines = logText.size();
+
+        Widget logRowBox = boxes[slot];
+        logRowBox.setHidden(false);
+        logRowBox.setOpacity(row % 2 == 0 ? ODD_OPACITY : EVEN_OPACITY);
+        logRowBox.setOriginalY(y);
+        logRowBox.setOriginalHeight(boxHeight);
+        logRowBox.revalidate();
+
+        Widget logRowText = texts[slot];
+        logRowText.setHidden(false);
+        logRowText.setOriginalWidth(textX);
+        logRowText.setOriginalX(textX);
+        logRowText.setOriginalY(y + PADDING);
+        logRowText.setOriginalHeight(maxLines * LINE_HEIGHT);
+        logRowText.setText(String.join("<br>", logText));
+        logRowText.revalidate();
+
+        Widget logRowItem = sprites[slot];
+        logRowItem.setHidden(!hasItem);
+        if (hasItem) {
+            logRowItem.setItemId(itemId);
+            logRowItem.setOriginalY((y + 3) + (maxLines - 1) * (LINE_HEIGHT / 2)); // to center the item sprite
+            logRowItem.revalidate();
+        }
+    }
+
+    // First row overlapping the given y
+    private int rowAt(int y) {
+        int low = 0;
+        int high = rowOffsets.length - 2;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (rowOffsets[mid] <= y) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return Math.max(0, low);
+    }
+
+    private int textWidth(int row) {
+        return container.getWidth() - PADDING - (rows.itemId(row) > -1 ? ITEM_SIZE : 0);
+    }
+}
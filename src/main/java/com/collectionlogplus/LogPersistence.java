@@ -0,0 +1,404 @@
+package com.collectionlogplus;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/*
+ * Write-behind persistence for the item logs.
+ * Each profile folder holds a binary snapshot (logs.bin, see BinarySnapshot) and an append-only
+ * journal (logs.journal) with one JSON entry per line. The client thread only queues new entries,
+ * a single writer thread appends them to the journal and folds the journal into the snapshot once
+ * it grows too large.
+ * Older versions kept the snapshot as JSON (logs.json), it is converted the first time the
+ * profile is loaded and kept as logs.json.bak.
+ */
+@Slf4j
+@Singleton
+class LogPersistence {
+    static final String SNAPSHOT_FILE = "logs.bin";
+    static final String JOURNAL_FILE = "logs.journal";
+    static final String LEGACY_SNAPSHOT_FILE = "logs.json";
+    static final String HISTORY_FILE = "history.bin";
+    private static final String LEGACY_BACKUP_FILE = "logs.json.bak";
+    // Journal size after which it gets folded into the snapshot
+    private static final long COMPACT_THRESHOLD_BYTES = 256 * 1024;
+
+    private final Gson gson;
+    private final PluginMetrics metrics;
+    private final Queue<PendingEntry> pending = new ConcurrentLinkedQueue<>();
+    private ScheduledExecutorService writer;
+    private ScheduledFuture<?> flushTask;
+
+    @Inject
+    LogPersistence(Gson gson, PluginMetrics metrics) {
+        this.gson = gson;
+        this.metrics = metrics;
+    }
+
+    synchronized void start(int flushIntervalSeconds) {
+        if (writer == null) {
+            writer = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder()
+                            .setNameFormat("collection-log-plus-writer")
+                            .setDaemon(true)
+                            .build()
+            );
+        }
+        setFlushInterval(flushIntervalSeconds);
+    }
+
+    synchronized void setFlushInterval(int flushIntervalSeconds) {
+        if (writer == null) {
+            return;
+        }
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+        long interval = Math.max(1, flushIntervalSeconds);
+        flushTask = writer.scheduleWithFixedDelay(this::flushPending, interval, interval, TimeUnit.SECONDS);
+    }
+
+    synchronized void stop() {
+        if (writer == null) {
+            return;
+        }
+        flushTask.cancel(false);
+        flushTask = null;
+        writer.execute(this::flushPending);
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Timed out waiting for item logs to be written");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    // Everything unlocked in one tick goes in as one
+    void append(File playerFolder, List<LogEntry> logEntries) {
+        pending.add(new PendingEntry(playerFolder.toPath(), logEntries));
+    }
+
+    synchronized Future<?> flush() {
+        if (writer == null) {
+            // Not running, so nobody else can be writing
+            flushPending();
+            return null;
+        }
+        return writer.submit(this::flushPending);
+    }
+
+    // Reads on the writer thread so anything still queued for this profile is on disk first
+    CompletableFuture<LogStore> load(File playerFolder) {
+        Path folder = playerFolder.toPath();
+        synchronized (this) {
+            if (writer != null) {
+                return CompletableFuture.supplyAsync(() -> {
+                    flushPending();
+                    long start = metrics.start();
+                    LogStore store = read(folder);
+                    metrics.recordTime(PluginMetrics.Metric.LOAD, start);
+                    if (Files.exists(folder.resolve(LEGACY_SNAPSHOT_FILE))) {
+                        migrate(folder);
+                    }
+                    return store;
+                }, writer);
+            }
+        }
+        return CompletableFuture.completedFuture(read(folder));
+    }
+
+    // Safe to call from any thread, a journal record being appended concurrently is skipped
+    LogStore read(Path folder) {
+        LogStore store = new LogStore();
+        readSnapshot(folder, store);
+        replayJournal(folder, store);
+        return store;
+    }
+
+    // Returns false if there is a snapshot that couldn't be read, it must not be replaced then
+    private boolean readSnapshot(Path folder, LogStore store) {
+        Path snapshotPath = folder.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshotPath)) {
+            try (InputStream inputStream = Files.newInputStream(snapshotPath)) {
+                BinarySnapshot.read(inputStream, store);
+                return true;
+            } catch (IOException e) {
+                log.error("Unable to read item logs at: " + snapshotPath, e);
+                return false;
+            }
+        }
+        Path legacyPath = folder.resolve(LEGACY_SNAPSHOT_FILE);
+        if (Files.exists(legacyPath)) {
+            return readLegacySnapshot(legacyPath, store);
+        }
+        return true;
+    }
+
+    private boolean readLegacySnapshot(Path snapshotPath, LogStore store) {
+        // Streamed entry by entry so the whole document is never held in memory
+        try (BufferedReader reader = Files.newBufferedReader(snapshotPath);
+             JsonReader jsonReader = new JsonReader(reader)) {
+            if (jsonReader.peek() == JsonToken.BEGIN_OBJECT) {
+                jsonReader.beginObject();
+                while (jsonReader.hasNext()) {
+                    // keyed by item id, which the entry holds as well
+                    jsonReader.nextName();
+                    LogEntry logEntry = gson.fromJson(jsonReader, LogEntry.class);
+                    if (logEntry != null) {
+                        store.add(logEntry);
+                    }
+                }
+                jsonReader.endObject();
+            }
+            return true;
+        } catch (EOFException e) {
+            log.debug("Empty item logs at: {}", snapshotPath);
+            return true;
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            log.error("Unable to read item logs at: " + snapshotPath, e);
+            return false;
+        }
+    }
+
+    private void replayJournal(Path folder, LogStore store) {
+        Path journalPath = folder.resolve(JOURNAL_FILE);
+        if (!Files.exists(journalPath)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(journalPath)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    LogEntry logEntry = gson.fromJson(line, LogEntry.class);
+                    if (logEntry != null) {
+                        // first time obtained wins, imports may have written an earlier time for a logged item
+                        store.addEarliest(logEntry);
+                    }
+                } catch (JsonParseException e) {
+                    // Partially written record from a crash mid-append
+                    log.warn("Skipping unreadable journal record in: {}", journalPath);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Unable to read item log journal at: " + journalPath, e);
+        }
+    }
+
+    // Written on the writer thread after any queued entries, so a later load sees it, null if already written
+    Future<?> saveHistory(File playerFolder, byte[] history) {
+        Path historyPath = playerFolder.toPath().resolve(HISTORY_FILE);
+        synchronized (this) {
+            if (writer != null) {
+                return writer.submit(() -> writeHistory(historyPath, history));
+            }
+        }
+        writeHistory(historyPath, history);
+        return null;
+    }
+
+    // Other files the plugin keeps, read and written on the writer thread rather than one the client shares
+    <T> CompletableFuture<T> supplyOnWriter(Supplier<T> task) {
+        synchronized (this) {
+            if (writer != null) {
+                return CompletableFuture.supplyAsync(task, writer);
+            }
+        }
+        return CompletableFuture.completedFuture(task.get());
+    }
+
+    CompletableFuture<Void> runOnWriter(Runnable task) {
+        return supplyOnWriter(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    CompletableFuture<AcquisitionHistory> loadHistory(File playerFolder) {
+        Path historyPath = playerFolder.toPath().resolve(HISTORY_FILE);
+        return supplyOnWriter(() -> readHistory(historyPath));
+    }
+
+    private void writeHistory(Path historyPath, byte[] history) {
+        try {
+            writeAtomically(historyPath, outputStream -> outputStream.write(history));
+        } catch (IOException e) {
+            log.error("Unable to write acquisition history to: " + historyPath, e);
+        }
+    }
+
+    private AcquisitionHistory readHistory(Path historyPath) {
+        if (!Files.exists(historyPath)) {
+            return new AcquisitionHistory();
+        }
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(historyPath))) {
+            return AcquisitionHistory.read(inputStream);
+        } catch (IOException e) {
+            // Starting over beats losing every new acquisition, the damaged file is kept aside
+            log.error("Unable to read acquisition history at: " + historyPath, e);
+            try {
+                Files.move(historyPath, historyPath.resolveSibling(HISTORY_FILE + ".bad"), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException moveError) {
+                log.warn("Unable to move aside: {}", historyPath);
+            }
+            return new AcquisitionHistory();
+        }
+    }
+
+    // Changes whenever anything in the profile folder has been written
+    static FolderStamp folderStamp(Path folder) {
+        File journalFile = folder.resolve(JOURNAL_FILE).toFile();
+        return new FolderStamp(
+                folder.resolve(SNAPSHOT_FILE).toFile().lastModified(),
+                folder.resolve(LEGACY_SNAPSHOT_FILE).toFile().lastModified(),
+                journalFile.lastModified(),
+                journalFile.length()
+        );
+    }
+
+    private void flushPending() {
+        Map<Path, List<LogEntry>> byFolder = new LinkedHashMap<>();
+        PendingEntry next;
+        while ((next = pending.poll()) != null) {
+            byFolder.computeIfAbsent(next.folder, k -> new ArrayList<>()).addAll(next.logEntries);
+        }
+        for (Map.Entry<Path, List<LogEntry>> entry : byFolder.entrySet()) {
+            appendToJournal(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void appendToJournal(Path folder, List<LogEntry> logEntries) {
+        Path journalPath = folder.resolve(JOURNAL_FILE);
+        long start = metrics.start();
+        try {
+            long sizeBefore = Files.exists(journalPath) ? Files.size(journalPath) : 0;
+            try (BufferedWriter writer = Files.newBufferedWriter(
+                    journalPath,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND
+            )) {
+                for (LogEntry logEntry : logEntries) {
+                    writer.write(gson.toJson(logEntry));
+                    writer.newLine();
+                }
+            }
+            long journalSize = Files.size(journalPath);
+            metrics.record(PluginMetrics.Metric.SAVE_BYTES, journalSize - sizeBefore);
+            if (journalSize > COMPACT_THRESHOLD_BYTES) {
+                compact(folder);
+            }
+            metrics.recordTime(PluginMetrics.Metric.SAVE, start);
+        } catch (IOException e) {
+            log.error("Unable to append item logs to: " + journalPath, e);
+        }
+    }
+
+    // Folds the journal into a fresh snapshot, the journal is only removed once the snapshot is in place
+    private void compact(Path folder) throws IOException {
+        LogStore store = new LogStore();
+        if (!readSnapshot(folder, store)) {
+            log.warn("Not compacting item logs for {}, the snapshot couldn't be read", folder.getFileName());
+            return;
+        }
+        replayJournal(folder, store);
+        writeSnapshot(folder, store);
+        Files.deleteIfExists(folder.resolve(JOURNAL_FILE));
+        log.debug("Compacted item log journal for: {}", folder.getFileName());
+    }
+
+    // Converts a JSON snapshot from an older version, the JSON is kept as a backup
+    private void migrate(Path folder) {
+        try {
+            compact(folder);
+            if (Files.exists(folder.resolve(SNAPSHOT_FILE))) {
+                Files.move(
+                        folder.resolve(LEGACY_SNAPSHOT_FILE),
+                        folder.resolve(LEGACY_BACKUP_FILE),
+                        StandardCopyOption.REPLACE_EXISTING
+                );
+                log.info("Converted item logs for {} to the binary format", folder.getFileName());
+            }
+        } catch (IOException e) {
+            log.error("Unable to convert item logs for: " + folder, e);
+        }
+    }
+
+    // Replaces the snapshot with the store's rows, written to a temp file first so a crash never leaves half a snapshot
+    void writeSnapshot(Path folder, LogStore store) throws IOException {
+        writeAtomically(folder.resolve(SNAPSHOT_FILE), outputStream -> BinarySnapshot.write(outputStream, store));
+    }
+
+    private static void writeAtomically(Path path, FileContents contents) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream outputStream = Files.newOutputStream(tempPath)) {
+            contents.writeTo(outputStream);
+        }
+        try {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private interface FileContents {
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+
+    // Modification times of a profile's files, 0 for missing ones, compared as a whole
+    @Value
+    static class FolderStamp {
+        long snapshotModified;
+        long legacySnapshotModified;
+        long journalModified;
+        long journalLength;
+    }
+
+    private static final class PendingEntry {
+        private final Path folder;
+        private final List<LogEntry> logEntries;
+
+        private PendingEntry(Path folder, List<LogEntry> logEntries) {
+            this.folder = folder;
+            this.logEntries = logEntries;
+        }
+    }
+}
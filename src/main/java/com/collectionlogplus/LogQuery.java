@@ -0,0 +1,148 @@
+package com.collectionlogplus;
+
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/*
+ * Sorted and filtered view over a LogStore for the log interface.
+ * Unfiltered views read straight from the store's indexes, filtered rows are
+ * only rebuilt when the filter or the store changes.
+ */
+class LogQuery {
+    private LogSortOrder sortOrder = LogSortOrder.NEWEST;
+    private String search = "";
+    private int regionId = -1;
+    private WorldPoint nearby = null;
+    private int nearbyRadius = 0;
+    // Changes whenever the sort or a filter does
+    private int version = 0;
+
+    private LogStore filteredStore = null;
+    private int filteredStoreVersion = -1;
+    private int[] filteredRows = new int[0];
+
+    LogSortOrder getSortOrder() {
+        return sortOrder;
+    }
+
+    void setSortOrder(LogSortOrder sortOrder) {
+        if (this.sortOrder != sortOrder) {
+            this.sortOrder = sortOrder;
+            filteredStore = null;
+            version++;
+        }
+    }
+
+    String getSearch() {
+        return search;
+    }
+
+    void setSearch(String search) {
+        search = search == null ? "" : search.trim();
+        if (!this.search.equals(search)) {
+            this.search = search;
+            filteredStore = null;
+            version++;
+        }
+    }
+
+    int getRegionId() {
+        return regionId;
+    }
+
+    // -1 to show every region
+    void setRegionId(int regionId) {
+        if (this.regionId != regionId) {
+            this.regionId = regionId;
+            filteredStore = null;
+            version++;
+        }
+    }
+
+    WorldPoint getNearby() {
+        return nearby;
+    }
+
+    // null to show every location
+    void setNearby(WorldPoint nearby, int radius) {
+        this.nearby = nearby;
+        this.nearbyRadius = radius;
+        filteredStore = null;
+        version++;
+    }
+
+    int version() {
+        return version;
+    }
+
+    boolean isFiltered() {
+        return !search.isEmpty() || regionId != -1 || nearby != null;
+    }
+
+    int size(LogStore store) {
+        if (!isFiltered()) {
+            return store.size();
+        }
+        refresh(store);
+        return filteredRows.length;
+    }
+
+    int row(LogStore store, int index) {
+        if (!isFiltered()) {
+            return orderedRow(store, index);
+        }
+        refresh(store);
+        return filteredRows[index];
+    }
+
+    private int orderedRow(LogStore store, int position) {
+        switch (sortOrder) {
+            case OLDEST:
+                return store.rowByTime(position);
+            case NAME:
+                return store.rowByName(position);
+            case NEWEST:
+            default:
+                return store.rowByTime(store.size() - 1 - position);
+        }
+    }
+
+    private void refresh(LogStore store) {
+        if (filteredStore == store && filteredStoreVersion == store.version()) {
+            return;
+        }
+        BitSet matches = search.isEmpty() ? null : store.search(search);
+        if (regionId != -1) {
+            matches = intersect(matches, store.rowsInRegion(regionId));
+        }
+        if (nearby != null) {
+            matches = intersect(matches, store.rowsWithin(nearby, nearbyRadius));
+        }
+
+        // Walking the already sorted index keeps the matches in order without sorting them
+        int[] rows = new int[matches.cardinality()];
+        int count = 0;
+        for (int position = 0; position < store.size() && count < rows.length; position++) {
+            int row = orderedRow(store, position);
+            if (matches.get(row)) {
+                rows[count++] = row;
+            }
+        }
+        filteredRows = count == rows.length ? rows : Arrays.copyOf(rows, count);
+        filteredStore = store;
+        filteredStoreVersion = store.version();
+    }
+
+    private static BitSet intersect(BitSet matches, int[] rows) {
+        BitSet rowSet = new BitSet();
+        for (int row : rows) {
+            rowSet.set(row);
+        }
+        if (matches != null) {
+            rowSet.and(matches);
+        }
+        return rowSet;
+    }
+}
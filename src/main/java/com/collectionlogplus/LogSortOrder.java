@@ -0,0 +1,22 @@
+package com.collectionlogplus;
+
+public enum LogSortOrder {
+    NEWEST("Newest first"),
+    OLDEST("Oldest first"),
+    NAME("Name");
+
+    private final String name;
+
+    LogSortOrder(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    LogSortOrder next() {
+        return values()[(ordinal() + 1) % values().length];
+    }
+}
@@ -0,0 +1,348 @@
+package com.collectionlogplus;
+
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/*
+ * Columnar in-memory store for the item logs, one row per unlocked item id.
+ * Rows are kept in insertion order, secondary indexes by unlock time, name and location
+ * are updated as rows are added.
+ * Only touched from the client thread. Other threads read immutable snapshots of it, which share
+ * the columns with the store: a column is only copied when a row a snapshot can see is changed
+ * in place, appends never copy.
+ */
+class LogStore {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int NO_ROW = -1;
+    // Packed coordinate for entries without a known location
+    static final int NO_LOCATION = -1;
+
+    private final BitSet seen = new BitSet();
+    private int[] rowById = new int[0];
+
+    private int size = 0;
+    private int[] itemIds = new int[INITIAL_CAPACITY];
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private int[] locations = new int[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] timeOrder = new int[INITIAL_CAPACITY];
+    private final NameIndex nameIndex = new NameIndex(this);
+    private final SpatialIndex spatialIndex = new SpatialIndex();
+    // Bumped on every change so views over the store know to rebuild
+    private int version = 0;
+    // Latest snapshot handed out, the columns are shared with it up to its size. Item ids are
+    // only ever appended so they are always shared
+    private Snapshot snapshot = null;
+    private boolean timestampsShared = false;
+    private boolean locationsShared = false;
+    private boolean namesShared = false;
+    private boolean timeOrderShared = false;
+
+    boolean contains(int itemId) {
+        return itemId >= 0 && seen.get(itemId);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int version() {
+        return version;
+    }
+
+    // Returns the new row, or -1 if the item was already logged
+    int add(int itemId, String name, long timestamp, WorldPoint worldPoint) {
+        return addPacked(itemId, name, timestamp, packLocation(worldPoint));
+    }
+
+    // Same as add with an already packed location
+    int addPacked(int itemId, String name, long timestamp, int location) {
+        if (itemId < 0 || seen.get(itemId)) {
+            return NO_ROW;
+        }
+        if (size == itemIds.length) {
+            grow();
+        }
+        int row = size;
+        itemIds[row] = itemId;
+        timestamps[row] = timestamp;
+        locations[row] = location;
+        names[row] = name;
+        insertTimeOrder(row, size);
+        spatialIndex.add(row, locations[row]);
+
+        seen.set(itemId);
+        if (itemId >= rowById.length) {
+            int[] grown = Arrays.copyOf(rowById, Math.max(itemId + 1, rowById.length * 2));
+            Arrays.fill(grown, rowById.length, grown.length, NO_ROW);
+            rowById = grown;
+        }
+        rowById[itemId] = row;
+        size++;
+        version++;
+        return row;
+    }
+
+    /*
+     * Adds the item, or if it is already logged moves it back to the given time and location
+     * when that is earlier. Returns the changed row, or -1 if the store already had it earlier.
+     */
+    int addEarliest(int itemId, String name, long timestamp, WorldPoint worldPoint) {
+        int row = rowOf(itemId);
+        if (row == NO_ROW) {
+            return add(itemId, name, timestamp, worldPoint);
+        }
+        if (timestamp >= timestamps[row]) {
+            return NO_ROW;
+        }
+        removeTimeOrder(row);
+        if (timestampsShared && row < snapshot.size) {
+            timestamps = timestamps.clone();
+            timestampsShared = false;
+        }
+        timestamps[row] = timestamp;
+        insertTimeOrder(row, size - 1);
+        int location = packLocation(worldPoint);
+        if (location != locations[row]) {
+            spatialIndex.move(row, locations[row], location);
+            if (locationsShared && row < snapshot.size) {
+                locations = locations.clone();
+                locationsShared = false;
+            }
+            locations[row] = location;
+        }
+        version++;
+        return row;
+    }
+
+    int addEarliest(LogEntry logEntry) {
+        return addEarliest(
+                logEntry.getItemId(),
+                logEntry.getName(),
+                LogEntry.parseTimestamp(logEntry.getTimestamp()),
+                logEntry.getWorldPoint()
+        );
+    }
+
+    int add(LogEntry logEntry) {
+        return add(
+                logEntry.getItemId(),
+                logEntry.getName(),
+                LogEntry.parseTimestamp(logEntry.getTimestamp()),
+                logEntry.getWorldPoint()
+        );
+    }
+
+    int rowOf(int itemId) {
+        return contains(itemId) ? rowById[itemId] : NO_ROW;
+    }
+
+    int itemId(int row) {
+        return itemIds[row];
+    }
+
+    String name(int row) {
+        return names[row];
+    }
+
+    // Names aren't saved in the snapshot, rows read from it have a null name until this is called
+    void setName(int row, String name) {
+        if (namesShared && row < snapshot.size) {
+            names = names.clone();
+            namesShared = false;
+        }
+        names[row] = name;
+        nameIndex.invalidate();
+        version++;
+    }
+
+    long timestamp(int row) {
+        return timestamps[row];
+    }
+
+    int location(int row) {
+        return locations[row];
+    }
+
+    WorldPoint worldPoint(int row) {
+        return unpackLocation(locations[row]);
+    }
+
+    // Row at the given position when ordered by unlock time, oldest first
+    int rowByTime(int position) {
+        return timeOrder[position];
+    }
+
+    // Row at the given position when ordered by name
+    int rowByName(int position) {
+        return nameIndex.rowByName(position);
+    }
+
+    // Rows with a name matching the search as typed
+    BitSet search(String query) {
+        return nameIndex.search(query);
+    }
+
+    int[] rowsInRegion(int regionId) {
+        return spatialIndex.rowsInRegion(regionId);
+    }
+
+    int[] rowsWithin(WorldPoint center, int radius) {
+        return spatialIndex.rowsWithin(this, center.getX(), center.getY(), center.getPlane(), radius);
+    }
+
+    SpatialIndex spatialIndex() {
+        return spatialIndex;
+    }
+
+    LogEntry entry(int row) {
+        return new LogEntry(
+                itemIds[row],
+                names[row],
+                LogEntry.formatTimestamp(timestamps[row]),
+                worldPoint(row)
+        );
+    }
+
+    /*
+     * The rows as they are now, safe to read from any thread once handed over. Doesn't copy, the
+     * same snapshot is returned until the store changes.
+     */
+    Snapshot snapshot() {
+        if (snapshot == null || snapshot.version != version) {
+            snapshot = new Snapshot(version, size, itemIds, timestamps, locations, names, timeOrder);
+            timestampsShared = true;
+            locationsShared = true;
+            namesShared = true;
+            timeOrderShared = true;
+        }
+        return snapshot;
+    }
+
+    static int packLocation(WorldPoint worldPoint) {
+        if (worldPoint == null) {
+            return NO_LOCATION;
+        }
+        // 15 bits each for x and y, 2 bits for the plane
+        return (worldPoint.getX() & 0x7FFF)
+                | (worldPoint.getY() & 0x7FFF) << 15
+                | (worldPoint.getPlane() & 0x3) << 30;
+    }
+
+    static WorldPoint unpackLocation(int location) {
+        if (location == NO_LOCATION) {
+            return null;
+        }
+        return new WorldPoint(location & 0x7FFF, (location >>> 15) & 0x7FFF, (location >>> 30) & 0x3);
+    }
+
+    // count is how many rows are currently in the time order
+    private void insertTimeOrder(int row, int count) {
+        // Entries almost always arrive in time order so this is usually a plain append
+        long timestamp = timestamps[row];
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[timeOrder[mid]] <= timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (timeOrderShared && low < snapshot.size) {
+            timeOrder = timeOrder.clone();
+            timeOrderShared = false;
+        }
+        System.arraycopy(timeOrder, low, timeOrder, low + 1, count - low);
+        timeOrder[low] = row;
+    }
+
+    private void removeTimeOrder(int row) {
+        // First position with the row's timestamp, then along the rows sharing it
+        long timestamp = timestamps[row];
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[timeOrder[mid]] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        while (timeOrder[low] != row) {
+            low++;
+        }
+        if (timeOrderShared && low < snapshot.size) {
+            timeOrder = timeOrder.clone();
+            timeOrderShared = false;
+        }
+        System.arraycopy(timeOrder, low + 1, timeOrder, low, size - low - 1);
+    }
+
+    private void grow() {
+        int capacity = itemIds.length * 2;
+        itemIds = Arrays.copyOf(itemIds, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        locations = Arrays.copyOf(locations, capacity);
+        names = Arrays.copyOf(names, capacity);
+        timeOrder = Arrays.copyOf(timeOrder, capacity);
+        // Fresh copies, whatever snapshot there is keeps the old ones
+        timestampsShared = false;
+        locationsShared = false;
+        namesShared = false;
+        timeOrderShared = false;
+    }
+
+    static final class Snapshot {
+        private final int version;
+        private final int size;
+        private final int[] itemIds;
+        private final long[] timestamps;
+        private final int[] locations;
+        private final String[] names;
+        private final int[] timeOrder;
+
+        private Snapshot(int version, int size, int[] itemIds, long[] timestamps, int[] locations, String[] names, int[] timeOrder) {
+            this.version = version;
+            this.size = size;
+            this.itemIds = itemIds;
+            this.timestamps = timestamps;
+            this.locations = locations;
+            this.names = names;
+            this.timeOrder = timeOrder;
+        }
+
+        // Store version the snapshot was taken at
+        int version() {
+            return version;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int rowByTime(int position) {
+            return timeOrder[position];
+        }
+
+        int itemId(int row) {
+            return itemIds[row];
+        }
+
+        String name(int row) {
+            return names[row];
+        }
+
+        long timestamp(int row) {
+            return timestamps[row];
+        }
+
+        int location(int row) {
+            return locations[row];
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.collectionlogplus;
+
+import net.runelite.client.ui.overlay.worldmap.WorldMapPoint;
+import net.runelite.client.ui.overlay.worldmap.WorldMapPointManager;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * World map markers for where items were unlocked.
+ * One marker per region and plane rather than per item, so the map only has a few hundred
+ * points to place while panning no matter how large the log is.
+ */
+@Singleton
+class LogWorldMapMarkers {
+    private static final BufferedImage MARKER_IMAGE = createMarkerImage();
+
+    private final WorldMapPointManager worldMapPointManager;
+    // Spatial index cell key -> marker
+    private final Map<Integer, WorldMapPoint> markers = new HashMap<>();
+
+    @Inject
+    LogWorldMapMarkers(WorldMapPointManager worldMapPointManager) {
+        this.worldMapPointManager = worldMapPointManager;
+    }
+
+    void show(LogStore store) {
+        clear();
+        SpatialIndex spatialIndex = store.spatialIndex();
+        for (int cellKey : spatialIndex.cellKeys()) {
+            update(store, cellKey);
+        }
+    }
+
+    // Called as rows are added so only the affected marker changes
+    void onRowAdded(LogStore store, int row) {
+        if (row < 0) {
+            return;
+        }
+        int location = store.location(row);
+        if (location == LogStore.NO_LOCATION) {
+            return;
+        }
+        update(store, SpatialIndex.cellKey(SpatialIndex.regionId(location), location >>> 30));
+    }
+
+    void clear() {
+        for (WorldMapPoint marker : markers.values()) {
+            worldMapPointManager.remove(marker);
+        }
+        markers.clear();
+    }
+
+    private void update(LogStore store, int cellKey) {
+        SpatialIndex spatialIndex = store.spatialIndex();
+        int count = spatialIndex.cellCount(cellKey);
+        int latestRow = spatialIndex.cellLatestRow(cellKey);
+        String tooltip = "Collection Log Plus: " + count + (count == 1 ? " item" : " items")
+                + "<br>Latest: " + store.name(latestRow);
+
+        WorldMapPoint marker = markers.get(cellKey);
+        if (marker == null) {
+            // Placed on the first unlock in the region
+            marker = new WorldMapPoint(store.worldPoint(spatialIndex.cellFirstRow(cellKey)), MARKER_IMAGE);
+            marker.setName("Collection Log Plus");
+            marker.setTooltip(tooltip);
+            markers.put(cellKey, marker);
+            worldMapPointManager.add(marker);
+        } else {
+            marker.setTooltip(tooltip);
+        }
+    }
+
+    private static BufferedImage createMarkerImage() {
+        BufferedImage image = new BufferedImage(9, 9, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setColor(Color.BLACK);
+        graphics.fillOval(0, 0, 9, 9);
+        graphics.setColor(new Color(0xff981f));
+        graphics.fillOval(1, 1, 7, 7);
+        graphics.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,65 @@
+package com.collectionlogplus;
+
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+
+import javax.inject.Inject;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+
+/*
+ * Debug overlay with the p50 and p99 of every metric and the plugin's share of frame time.
+ */
+class MetricsOverlay extends OverlayPanel {
+    private static final int WIDTH = 220;
+
+    private final PluginMetrics metrics;
+
+    @Inject
+    MetricsOverlay(PluginMetrics metrics) {
+        this.metrics = metrics;
+        setPosition(OverlayPosition.TOP_LEFT);
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics) {
+        if (!metrics.isEnabled()) {
+            return null;
+        }
+        panelComponent.setPreferredSize(new Dimension(WIDTH, 0));
+        panelComponent.getChildren().add(TitleComponent.builder()
+                .text("Collection Log Plus")
+                .color(Color.ORANGE)
+                .build());
+        panelComponent.getChildren().add(LineComponent.builder()
+                .left("Metric")
+                .right("count  p50 / p99")
+                .build());
+        for (PluginMetrics.Metric metric : PluginMetrics.Metric.values()) {
+            Histogram histogram = metrics.histogram(metric);
+            if (histogram.count() == 0) {
+                continue;
+            }
+            panelComponent.getChildren().add(LineComponent.builder()
+                    .left(metric.getLabel())
+                    .right(histogram.count() + "  "
+                            + metric.format(histogram.percentile(50)) + " / "
+                            + metric.format(histogram.percentile(99)))
+                    .build());
+        }
+        double frameTimeShare = metrics.frameTimeShare();
+        panelComponent.getChildren().add(LineComponent.builder()
+                .left("Frame time share")
+                .right(String.format("%.2f%%", frameTimeShare * 100))
+                .rightColor(frameTimeShare > 0.05 ? Color.RED : Color.GREEN)
+                .build());
+        panelComponent.getChildren().add(LineComponent.builder()
+                .left("Store size")
+                .right(Integer.toString(metrics.getStoreSize()))
+                .build());
+        return super.render(graphics);
+    }
+}
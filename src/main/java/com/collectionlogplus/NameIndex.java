@@ -0,0 +1,192 @@
+package com.collectionlogplus;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Locale;
+
+/*
+ * Name indexes over the rows of a LogStore.
+ * Full names give the alphabetical order and every word of every name is kept in a sorted
+ * token table, so a search prefix maps to one contiguous range of tokens.
+ * Built with a single sort the first time it is used, rows added after that are inserted in place.
+ */
+class NameIndex {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final LogStore store;
+    private int size = 0;
+    private String[] sortedNames = new String[INITIAL_CAPACITY];
+    private int[] nameOrder = new int[INITIAL_CAPACITY];
+
+    private int tokenCount = 0;
+    private String[] tokens = new String[INITIAL_CAPACITY];
+    private int[] tokenRows = new int[INITIAL_CAPACITY];
+
+    NameIndex(LogStore store) {
+        this.store = store;
+    }
+
+    // Row at the given position in alphabetical order
+    int rowByName(int position) {
+        catchUp();
+        return nameOrder[position];
+    }
+
+    // Rows where every word of the query is the start of a word in the name
+    BitSet search(String query) {
+        catchUp();
+        BitSet matches = null;
+        for (String word : query.toLowerCase(Locale.ROOT).trim().split(" +")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            BitSet wordMatches = new BitSet();
+            for (int i = lowerBound(tokens, tokenCount, word); i < tokenCount && tokens[i].startsWith(word); i++) {
+                wordMatches.set(tokenRows[i]);
+            }
+            if (matches == null) {
+                matches = wordMatches;
+            } else {
+                matches.and(wordMatches);
+            }
+        }
+        return matches == null ? new BitSet() : matches;
+    }
+
+    // Rebuilt from scratch the next time it is used
+    void invalidate() {
+        size = 0;
+        tokenCount = 0;
+    }
+
+    private void catchUp() {
+        int pending = store.size() - size;
+        if (pending == 0) {
+            return;
+        }
+        // Inserting shifts the tables, past a handful of rows one sort is cheaper
+        if (pending > 16 + size / 8) {
+            rebuild();
+            return;
+        }
+        for (int row = size; row < store.size(); row++) {
+            insert(row, key(row));
+        }
+    }
+
+    private void rebuild() {
+        int rowCount = store.size();
+        String[] keys = new String[rowCount];
+        String[][] rowWords = new String[rowCount][];
+        Integer[] rows = new Integer[rowCount];
+        int totalTokens = 0;
+        for (int row = 0; row < rowCount; row++) {
+            keys[row] = key(row);
+            rowWords[row] = words(keys[row]);
+            rows[row] = row;
+            totalTokens += rowWords[row].length;
+        }
+        // Stable sort, so equal names keep insertion order like inserting one by one does
+        Arrays.sort(rows, (a, b) -> keys[a].compareTo(keys[b]));
+        sortedNames = new String[Math.max(INITIAL_CAPACITY, rowCount)];
+        nameOrder = new int[sortedNames.length];
+        for (int position = 0; position < rowCount; position++) {
+            sortedNames[position] = keys[rows[position]];
+            nameOrder[position] = rows[position];
+        }
+        size = rowCount;
+
+        String[] allTokens = new String[totalTokens];
+        int[] allTokenRows = new int[totalTokens];
+        int count = 0;
+        for (int row = 0; row < rowCount; row++) {
+            for (String token : rowWords[row]) {
+                allTokens[count] = token;
+                allTokenRows[count] = row;
+                count++;
+            }
+        }
+        Integer[] tokenOrder = new Integer[totalTokens];
+        for (int i = 0; i < totalTokens; i++) {
+            tokenOrder[i] = i;
+        }
+        Arrays.sort(tokenOrder, (a, b) -> allTokens[a].compareTo(allTokens[b]));
+        tokens = new String[Math.max(INITIAL_CAPACITY, totalTokens)];
+        tokenRows = new int[tokens.length];
+        for (int i = 0; i < totalTokens; i++) {
+            tokens[i] = allTokens[tokenOrder[i]];
+            tokenRows[i] = allTokenRows[tokenOrder[i]];
+        }
+        tokenCount = totalTokens;
+    }
+
+    private String key(int row) {
+        String name = store.name(row);
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    private void insert(int row, String key) {
+        if (size == nameOrder.length) {
+            sortedNames = Arrays.copyOf(sortedNames, size * 2);
+            nameOrder = Arrays.copyOf(nameOrder, size * 2);
+        }
+        int position = upperBound(sortedNames, size, key);
+        System.arraycopy(sortedNames, position, sortedNames, position + 1, size - position);
+        System.arraycopy(nameOrder, position, nameOrder, position + 1, size - position);
+        sortedNames[position] = key;
+        nameOrder[position] = row;
+        size++;
+
+        for (String token : words(key)) {
+            addToken(token, row);
+        }
+    }
+
+    private static String[] words(String key) {
+        String trimmed = key.trim();
+        return trimmed.isEmpty() ? new String[0] : trimmed.split(" +");
+    }
+
+    private void addToken(String token, int row) {
+        if (tokenCount == tokens.length) {
+            tokens = Arrays.copyOf(tokens, tokenCount * 2);
+            tokenRows = Arrays.copyOf(tokenRows, tokenCount * 2);
+        }
+        int position = upperBound(tokens, tokenCount, token);
+        System.arraycopy(tokens, position, tokens, position + 1, tokenCount - position);
+        System.arraycopy(tokenRows, position, tokenRows, position + 1, tokenCount - position);
+        tokens[position] = token;
+        tokenRows[position] = row;
+        tokenCount++;
+    }
+
+    // First index with a value >= key
+    private static int lowerBound(String[] values, int count, String key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First index with a value > key, so equal names keep insertion order
+    private static int upperBound(String[] values, int count, String key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid].compareTo(key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,175 @@
+package com.collectionlogplus;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Timings and sizes of the plugin's hot paths, shown by the metrics overlay.
+ * Everything is a no-op while disabled, a timed section costs one volatile read.
+ * Timings are also emitted as JFR events so they line up with the rest of a flight recording.
+ */
+@Singleton
+class PluginMetrics {
+    enum Metric {
+        CONTAINERS("Containers", Unit.NANOS, true),
+        LOOT("Loot", Unit.NANOS, true),
+        TICK("Tick", Unit.NANOS, true),
+        UNLOCK_COMMIT("Unlock commit", Unit.NANOS, true),
+        UNLOCKS_PER_TICK("Unlocks per tick", Unit.COUNT, false),
+        RENDER("Render", Unit.NANOS, true),
+        SCROLL("Scroll", Unit.NANOS, true),
+        LOAD("Load", Unit.NANOS, false),
+        SAVE("Save", Unit.NANOS, false),
+        SAVE_BYTES("Bytes per save", Unit.BYTES, false),
+        RENDER_WIDGETS("Widgets per render", Unit.COUNT, false),
+        FRAME("Frame", Unit.NANOS, false);
+
+        private final String label;
+        private final Unit unit;
+        // Counted towards the plugin's share of frame time
+        private final boolean clientThread;
+
+        Metric(String label, Unit unit, boolean clientThread) {
+            this.label = label;
+            this.unit = unit;
+            this.clientThread = clientThread;
+        }
+
+        String getLabel() {
+            return label;
+        }
+
+        String format(long value) {
+            switch (unit) {
+                case NANOS:
+                    return value < 1_000_000
+                            ? String.format("%.1fus", value / 1_000.0)
+                            : String.format("%.2fms", value / 1_000_000.0);
+                case BYTES:
+                    return value < 1024 ? value + "B" : String.format("%.1fKiB", value / 1024.0);
+                default:
+                    return Long.toString(value);
+            }
+        }
+    }
+
+    private enum Unit {
+        NANOS,
+        BYTES,
+        COUNT
+    }
+
+    private final Map<Metric, Histogram> histograms = new EnumMap<>(Metric.class);
+    private final AtomicLong clientThreadNanos = new AtomicLong();
+    private final AtomicLong frameNanos = new AtomicLong();
+    private volatile boolean enabled = false;
+    private volatile int storeSize = 0;
+    // Only touched on the client thread
+    private long lastFrame = 0;
+
+    @Inject
+    PluginMetrics() {
+        for (Metric metric : Metric.values()) {
+            histograms.put(metric, new Histogram());
+        }
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    // Starts from nothing every time it is turned on
+    void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) {
+            for (Histogram histogram : histograms.values()) {
+                histogram.reset();
+            }
+            clientThreadNanos.set(0);
+            frameNanos.set(0);
+            lastFrame = 0;
+        }
+        this.enabled = enabled;
+    }
+
+    // Start of a timed section, pass the result to recordTime
+    long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    void recordTime(Metric metric, long start) {
+        if (start == 0 || !enabled) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        histograms.get(metric).record(nanos);
+        if (metric.clientThread) {
+            clientThreadNanos.addAndGet(nanos);
+        }
+        TimingEvent event = new TimingEvent();
+        if (event.isEnabled()) {
+            event.metric = metric.label;
+            event.elapsed = nanos;
+            event.commit();
+        }
+    }
+
+    void record(Metric metric, long value) {
+        if (enabled) {
+            histograms.get(metric).record(value);
+        }
+    }
+
+    // Called at the start of every frame on the client thread
+    void onFrame() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (lastFrame != 0) {
+            histograms.get(Metric.FRAME).record(now - lastFrame);
+            frameNanos.addAndGet(now - lastFrame);
+        }
+        lastFrame = now;
+    }
+
+    void setStoreSize(int storeSize) {
+        this.storeSize = storeSize;
+    }
+
+    int getStoreSize() {
+        return storeSize;
+    }
+
+    Histogram histogram(Metric metric) {
+        return histograms.get(metric);
+    }
+
+    // Share of the time between frames spent in the plugin's client thread work
+    double frameTimeShare() {
+        long frames = frameNanos.get();
+        return frames == 0 ? 0 : (double) clientThreadNanos.get() / frames;
+    }
+
+    @Name("com.collectionlogplus.Timing")
+    @Label("Collection Log Plus Timing")
+    @Category("Collection Log Plus")
+    @Description("Time spent in one of the plugin's hot paths")
+    static final class TimingEvent extends Event {
+        @Label("Metric")
+        String metric;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+}
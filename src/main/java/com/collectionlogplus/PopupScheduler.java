@@ -0,0 +1,93 @@
+package com.collectionlogplus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/*
+ * New item popups waiting to be shown, one at a time. Unlocks found while a popup is up are
+ * queued, and either shown one after the other or merged into a single "N new items" popup.
+ * The queue is bounded, past that new unlocks are merged into the last queued popup so none are
+ * dropped from the count.
+ * Only touched from the client thread.
+ */
+class PopupScheduler {
+    // Item names listed in a popup for several new items
+    static final int NAMES_SHOWN = 3;
+    static final int MAX_QUEUED = 8;
+
+    static final class Popup {
+        private int count = 0;
+        private final List<String> names = new ArrayList<>(NAMES_SHOWN);
+
+        private void add(List<LogEntry> logEntries) {
+            for (LogEntry logEntry : logEntries) {
+                if (names.size() < NAMES_SHOWN) {
+                    names.add(logEntry.getName());
+                }
+            }
+            count += logEntries.size();
+        }
+
+        private void add(Popup popup) {
+            for (String name : popup.names) {
+                if (names.size() < NAMES_SHOWN) {
+                    names.add(name);
+                }
+            }
+            count += popup.count;
+        }
+
+        String description() {
+            if (count == 1) {
+                return String.format("New item:<br><br><col=ffffff>%s</col>", names.get(0));
+            }
+            String listed = String.join(", ", names);
+            if (count > names.size()) {
+                listed += " and " + (count - names.size()) + " more";
+            }
+            return String.format("%d new items:<br><br><col=ffffff>%s</col>", count, listed);
+        }
+    }
+
+    private final Deque<Popup> queue = new ArrayDeque<>();
+    private boolean showing = false;
+    private long lastClosed = 0;
+
+    void offer(List<LogEntry> logEntries) {
+        if (logEntries.isEmpty()) {
+            return;
+        }
+        Popup popup = queue.size() < MAX_QUEUED ? new Popup() : queue.peekLast();
+        popup.add(logEntries);
+        if (popup != queue.peekLast()) {
+            queue.addLast(popup);
+        }
+    }
+
+    // The popup to show now, null while one is up, nothing is queued or the delay hasn't passed
+    Popup next(long now, long delayMillis, boolean merge) {
+        if (showing || queue.isEmpty() || now - lastClosed < delayMillis) {
+            return null;
+        }
+        Popup popup = queue.pollFirst();
+        while (merge && !queue.isEmpty()) {
+            popup.add(queue.pollFirst());
+        }
+        showing = true;
+        return popup;
+    }
+
+    void onClosed(long now) {
+        if (showing) {
+            showing = false;
+            lastClosed = now;
+        }
+    }
+
+    void clear() {
+        queue.clear();
+        showing = false;
+    }
+}
@@ -0,0 +1,152 @@
+package com.collectionlogplus;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Grid of LogStore rows by where they were unlocked, one cell per region and plane.
+ * Rows within a cell are kept in insertion order.
+ */
+class SpatialIndex {
+    private static final int[] NO_ROWS = new int[0];
+    private static final int REGION_SIZE = 64;
+
+    private final Map<Integer, Cell> cells = new HashMap<>();
+
+    void add(int row, int location) {
+        if (location == LogStore.NO_LOCATION) {
+            return;
+        }
+        cells.computeIfAbsent(cellKey(regionId(location), plane(location)), k -> new Cell()).add(row);
+    }
+
+    void move(int row, int oldLocation, int newLocation) {
+        if (oldLocation != LogStore.NO_LOCATION) {
+            int key = cellKey(regionId(oldLocation), plane(oldLocation));
+            Cell cell = cells.get(key);
+            if (cell != null && cell.remove(row) && cell.size == 0) {
+                cells.remove(key);
+            }
+        }
+        add(row, newLocation);
+    }
+
+    // Rows unlocked in the region on any plane
+    int[] rowsInRegion(int regionId) {
+        int[] rows = NO_ROWS;
+        for (int plane = 0; plane < 4; plane++) {
+            Cell cell = cells.get(cellKey(regionId, plane));
+            if (cell != null) {
+                int previous = rows.length;
+                rows = Arrays.copyOf(rows, previous + cell.size);
+                System.arraycopy(cell.rows, 0, rows, previous, cell.size);
+            }
+        }
+        return rows;
+    }
+
+    // Rows unlocked on the plane within the given number of tiles, only the regions overlapping the area are visited
+    int[] rowsWithin(LogStore store, int x, int y, int plane, int radius) {
+        int[] rows = new int[16];
+        int count = 0;
+        for (int regionX = Math.max(0, x - radius) / REGION_SIZE; regionX <= (x + radius) / REGION_SIZE; regionX++) {
+            for (int regionY = Math.max(0, y - radius) / REGION_SIZE; regionY <= (y + radius) / REGION_SIZE; regionY++) {
+                Cell cell = cells.get(cellKey(regionX << 8 | regionY, plane));
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size; i++) {
+                    int location = store.location(cell.rows[i]);
+                    // Same tile distance as WorldPoint.distanceTo
+                    if (Math.max(Math.abs(x(location) - x), Math.abs(y(location) - y)) <= radius) {
+                        if (count == rows.length) {
+                            rows = Arrays.copyOf(rows, count * 2);
+                        }
+                        rows[count++] = cell.rows[i];
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    // Keys of every cell with at least one row, see cellRegionId and cellPlane
+    int[] cellKeys() {
+        int[] keys = new int[cells.size()];
+        int i = 0;
+        for (int key : cells.keySet()) {
+            keys[i++] = key;
+        }
+        return keys;
+    }
+
+    int cellCount(int cellKey) {
+        Cell cell = cells.get(cellKey);
+        return cell == null ? 0 : cell.size;
+    }
+
+    // First row added to the cell
+    int cellFirstRow(int cellKey) {
+        Cell cell = cells.get(cellKey);
+        return cell == null ? -1 : cell.rows[0];
+    }
+
+    // Most recently added row in the cell
+    int cellLatestRow(int cellKey) {
+        Cell cell = cells.get(cellKey);
+        return cell == null ? -1 : cell.rows[cell.size - 1];
+    }
+
+    static int cellKey(int regionId, int plane) {
+        return regionId << 2 | plane;
+    }
+
+    static int cellRegionId(int cellKey) {
+        return cellKey >>> 2;
+    }
+
+    static int cellPlane(int cellKey) {
+        return cellKey & 0x3;
+    }
+
+    static int regionId(int location) {
+        return (x(location) >> 6) << 8 | (y(location) >> 6);
+    }
+
+    private static int x(int location) {
+        return location & 0x7FFF;
+    }
+
+    private static int y(int location) {
+        return (location >>> 15) & 0x7FFF;
+    }
+
+    private static int plane(int location) {
+        return (location >>> 30) & 0x3;
+    }
+
+    private static final class Cell {
+        private int[] rows = new int[4];
+        private int size = 0;
+
+        private void add(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = row;
+        }
+
+        // Keeps the remaining rows in insertion order
+        private boolean remove(int row) {
+            for (int i = 0; i < size; i++) {
+                if (rows[i] == row) {
+                    System.arraycopy(rows, i + 1, rows, i, size - i - 1);
+                    size--;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
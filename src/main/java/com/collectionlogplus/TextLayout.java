@@ -0,0 +1,134 @@
+package com.collectionlogplus;
+
+import net.runelite.api.FontTypeFace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Word wrapping for log row texts with the results cached per text and wrap width.
+ * Word widths are cached per font so a line is measured by adding up word widths
+ * instead of re-measuring the whole line for every word.
+ * Everything is dropped when the font or the container width changes. Row texts include counts
+ * that change as items are obtained, so the caches are also bounded, least recently used first.
+ */
+class TextLayout {
+    private static final String BULLET = "- ";
+    // Enough for every row of a log with every item in the game
+    private static final int MAX_WRAPPED_TEXTS = 1 << 15;
+    private static final int MAX_WRAP_WIDTHS = 4;
+    private static final int MAX_WORD_WIDTHS = 1 << 14;
+
+    private FontTypeFace font;
+    private int containerWidth = -1;
+    private int spaceWidth;
+    private int bulletWidth;
+    private final Map<String, Integer> wordWidths = lruMap(MAX_WORD_WIDTHS);
+    // wrap width -> text -> wrapped lines
+    private final Map<Integer, Map<String, String[]>> wrapped = lruMap(MAX_WRAP_WIDTHS);
+
+    // Should be called before laying out, clears cached results if the font or container changed
+    void setContainer(FontTypeFace font, int containerWidth) {
+        if (font != this.font) {
+            this.font = font;
+            this.spaceWidth = font.getTextWidth(" ");
+            this.bulletWidth = font.getTextWidth(BULLET);
+            wordWidths.clear();
+            wrapped.clear();
+        }
+        if (containerWidth != this.containerWidth) {
+            this.containerWidth = containerWidth;
+            wrapped.clear();
+        }
+    }
+
+    int lineCount(String[] descriptionTexts, int width) {
+        int lines = 0;
+        for (String descriptionText : descriptionTexts) {
+            lines += wrap(descriptionText, width).length;
+        }
+        return lines;
+    }
+
+    List<String> buildLogTextLines(String[] descriptionTexts, int width) {
+        if (descriptionTexts.length == 1) {
+            return Collections.unmodifiableList(Arrays.asList(wrap(descriptionTexts[0], width)));
+        }
+        List<String> lines = new ArrayList<>();
+        for (String descriptionText : descriptionTexts) {
+            Collections.addAll(lines, wrap(descriptionText, width));
+        }
+        return lines;
+    }
+
+    String[] wrap(String descriptionText, int width) {
+        Map<String, String[]> byText = wrapped.computeIfAbsent(width, k -> lruMap(MAX_WRAPPED_TEXTS));
+        String[] lines = byText.get(descriptionText);
+        if (lines == null) {
+            lines = layout(descriptionText, width);
+            byText.put(descriptionText, lines);
+        }
+        return lines;
+    }
+
+    private String[] layout(String descriptionText, int width) {
+        List<String> lines = new ArrayList<>(1);
+        StringBuilder line = new StringBuilder(BULLET);
+        int lineWidth = bulletWidth;
+        boolean firstWord = true;
+
+        int length = descriptionText.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && Character.isWhitespace(descriptionText.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && !Character.isWhitespace(descriptionText.charAt(i))) {
+                i++;
+            }
+            if (start == i) {
+                break;
+            }
+            String word = descriptionText.substring(start, i);
+            int wordWidth = wordWidth(word);
+            if (firstWord) {
+                line.append(word);
+                lineWidth += wordWidth;
+                firstWord = false;
+            } else if (lineWidth + spaceWidth + wordWidth > width) {
+                lines.add(line.toString());
+                line.setLength(0);
+                line.append(word);
+                lineWidth = wordWidth;
+            } else {
+                line.append(' ').append(word);
+                lineWidth += spaceWidth + wordWidth;
+            }
+        }
+        lines.add(line.toString());
+        return lines.toArray(new String[0]);
+    }
+
+    private int wordWidth(String word) {
+        Integer cached = wordWidths.get(word);
+        if (cached == null) {
+            cached = font.getTextWidth(word);
+            wordWidths.put(word, cached);
+        }
+        return cached;
+    }
+
+    private static <K, V> Map<K, V> lruMap(int maxSize) {
+        return new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+}
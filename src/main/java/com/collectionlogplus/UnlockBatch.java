@@ -0,0 +1,57 @@
+package com.collectionlogplus;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/*
+ * Items found to be new to the log during the current game tick, from every event that tick.
+ * Each item is kept once however many events held it, the plugin commits the lot on the next
+ * GameTick with one timestamp and location.
+ * Only touched from the client thread.
+ */
+class UnlockBatch {
+    private final BitSet pending = new BitSet();
+    private int[] itemIds = new int[16];
+    private String[] names = new String[16];
+    private int size = 0;
+
+    // Returns false if the item is already in the batch
+    boolean add(int itemId, String name) {
+        if (pending.get(itemId)) {
+            return false;
+        }
+        pending.set(itemId);
+        if (size == itemIds.length) {
+            itemIds = Arrays.copyOf(itemIds, size * 2);
+            names = Arrays.copyOf(names, size * 2);
+        }
+        itemIds[size] = itemId;
+        names[size] = name;
+        size++;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int itemId(int index) {
+        return itemIds[index];
+    }
+
+    String name(int index) {
+        return names[index];
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            pending.clear(itemIds[i]);
+            names[i] = null;
+        }
+        size = 0;
+    }
+}
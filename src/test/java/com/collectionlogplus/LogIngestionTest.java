@@ -0,0 +1,147 @@
+package com.collectionlogplus;
+
+import net.runelite.api.Item;
+import net.runelite.api.ItemComposition;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+
+import static org.junit.Assert.assertEquals;
+
+public class LogIngestionTest {
+    private static final int WHIP = 4151;
+    private static final int COINS = 995;
+    private static final Item[] EMPTY = {new Item(-1, 0), new Item(-1, 0)};
+
+    private LogIngestion ingestion;
+    private LogStore store;
+    private AcquisitionHistory history;
+    private long now = 1_700_000_000_000L;
+
+    @Before
+    public void setUp() {
+        ingestion = new LogIngestion(new ItemMetadataCache(new LogIngestion.ItemLookup() {
+            @Override
+            public ItemComposition getItemComposition(int itemId) {
+                return itemComposition(itemId);
+            }
+
+            @Override
+            public int canonicalize(int itemId) {
+                return itemId;
+            }
+        }), (itemId, name) -> store.add(itemId, name, now, null));
+        store = new LogStore();
+        history = new AcquisitionHistory();
+        // What was there when logging in isn't an acquisition
+        change(AcquisitionSource.INVENTORY, EMPTY);
+        change(AcquisitionSource.EQUIPMENT, EMPTY);
+        tick();
+    }
+
+    @Test
+    public void bankWithdrawalIsNotCounted() {
+        change(AcquisitionSource.BANK, items(COINS, 1000));
+        tick();
+        change(AcquisitionSource.BANK, EMPTY);
+        change(AcquisitionSource.INVENTORY, items(COINS, 1000));
+        tick();
+
+        assertEquals(0, history.count(COINS));
+        assertEquals(0, history.quantity(COINS));
+    }
+
+    @Test
+    public void bankWithdrawalIsNotCountedWhenTheInventoryChangesFirst() {
+        change(AcquisitionSource.BANK, items(COINS, 1000));
+        tick();
+        change(AcquisitionSource.INVENTORY, items(COINS, 1000));
+        change(AcquisitionSource.BANK, EMPTY);
+        tick();
+
+        assertEquals(0, history.quantity(COINS));
+    }
+
+    @Test
+    public void onlyMoreThanWasWithdrawnIsCounted() {
+        change(AcquisitionSource.BANK, items(COINS, 1000));
+        tick();
+        change(AcquisitionSource.BANK, items(COINS, 400));
+        change(AcquisitionSource.INVENTORY, items(COINS, 650));
+        tick();
+
+        assertEquals(1, history.count(COINS));
+        assertEquals(50, history.quantity(COINS));
+    }
+
+    @Test
+    public void gainWithTheBankOpenIsCounted() {
+        change(AcquisitionSource.BANK, items(COINS, 1000));
+        tick();
+        change(AcquisitionSource.INVENTORY, items(WHIP, 1));
+        tick();
+
+        assertEquals(1, history.count(WHIP));
+    }
+
+    @Test
+    public void unequippedItemIsNotCounted() {
+        change(AcquisitionSource.EQUIPMENT, items(WHIP, 1));
+        tick();
+        change(AcquisitionSource.EQUIPMENT, EMPTY);
+        change(AcquisitionSource.INVENTORY, items(WHIP, 1));
+        tick();
+
+        assertEquals(0, history.count(WHIP));
+    }
+
+    @Test
+    public void itemUnequippedFromTheLastSlotIsNotCounted() {
+        change(AcquisitionSource.EQUIPMENT, items(COINS, 1, WHIP, 1));
+        tick();
+        // The client leaves trailing empty slots out
+        change(AcquisitionSource.EQUIPMENT, new Item[]{new Item(COINS, 1)});
+        change(AcquisitionSource.INVENTORY, items(WHIP, 1));
+        tick();
+
+        assertEquals(0, history.count(WHIP));
+    }
+
+    private void change(AcquisitionSource source, Item[] items) {
+        ingestion.onContainerChanged(source, items, store, history, now);
+    }
+
+    private void tick() {
+        ingestion.onTick(store, history);
+        now += 600;
+    }
+
+    private static Item[] items(int itemId, int quantity) {
+        return new Item[]{new Item(itemId, quantity), new Item(-1, 0)};
+    }
+
+    private static Item[] items(int itemId, int quantity, int secondItemId, int secondQuantity) {
+        return new Item[]{new Item(itemId, quantity), new Item(secondItemId, secondQuantity)};
+    }
+
+    private static ItemComposition itemComposition(int itemId) {
+        return (ItemComposition) Proxy.newProxyInstance(
+                ItemComposition.class.getClassLoader(),
+                new Class<?>[]{ItemComposition.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getId":
+                            return itemId;
+                        case "getName":
+                            return "Item " + itemId;
+                        case "getNote":
+                        case "getLinkedNoteId":
+                        case "getPlaceholderTemplateId":
+                            return -1;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+        );
+    }
+}
@@ -0,0 +1,143 @@
+package com.collectionlogplus;
+
+import net.runelite.api.coords.WorldPoint;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+
+public class LogStoreSnapshotTest {
+    private static final int INITIAL_ROWS = 2_000;
+    private static final int WRITES = 200_000;
+    private static final int WRITES_PER_SNAPSHOT = 64;
+    private static final int READERS = 3;
+
+    @Test
+    public void snapshotIsUnchangedByLaterWrites() {
+        Random random = new Random(1);
+        LogStore store = store(random);
+        Expected expected = new Expected(store.snapshot());
+
+        for (int write = 0; write < 10_000; write++) {
+            write(store, random);
+        }
+
+        expected.verify();
+    }
+
+    @Test
+    public void snapshotsReadOnOtherThreadsNeverChange() throws InterruptedException {
+        Random random = new Random(2);
+        LogStore store = store(random);
+        Expected first = new Expected(store.snapshot());
+        AtomicReference<Expected> latest = new AtomicReference<>(first);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        // Readers keep going until the writer is done, each checking whatever snapshot is newest
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        List<Thread> readers = new ArrayList<>();
+        for (int reader = 0; reader < READERS; reader++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    while (writing.get()) {
+                        latest.get().verify();
+                        // Every write so far has happened after the first snapshot, it must still hold
+                        first.verify();
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            thread.start();
+            readers.add(thread);
+        }
+
+        for (int write = 1; write <= WRITES && failure.get() == null; write++) {
+            write(store, random);
+            if (write % WRITES_PER_SNAPSHOT == 0) {
+                latest.set(new Expected(store.snapshot()));
+            }
+        }
+        writing.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        if (failure.get() != null) {
+            throw new AssertionError("A reader saw a snapshot change", failure.get());
+        }
+    }
+
+    private static LogStore store(Random random) {
+        LogStore store = new LogStore();
+        long timestamp = 1_600_000_000_000L;
+        for (int itemId = 0; itemId < INITIAL_ROWS; itemId++) {
+            timestamp += 1 + random.nextInt(60_000);
+            store.add(itemId, "Item " + itemId, timestamp, itemId % 3 == 0 ? null : new WorldPoint(3200, 3200, 0));
+        }
+        return store;
+    }
+
+    // Appends mostly, sometimes moves an item to an earlier time or renames a row, like the plugin does
+    private static void write(LogStore store, Random random) {
+        int kind = random.nextInt(8);
+        if (kind == 0) {
+            int row = random.nextInt(store.size());
+            store.addEarliest(store.itemId(row), store.name(row), store.timestamp(row) - 1 - random.nextInt(1_000_000), null);
+        } else if (kind == 1) {
+            store.setName(random.nextInt(store.size()), "Renamed " + random.nextInt());
+        } else {
+            long latest = store.timestamp(store.rowByTime(store.size() - 1));
+            store.add(store.size() + INITIAL_ROWS, "Item " + store.size(), latest + 1 + random.nextInt(60_000), null);
+        }
+    }
+
+    // A snapshot with a copy of what it held when it was taken
+    private static final class Expected {
+        private final LogStore.Snapshot snapshot;
+        private final int size;
+        private final int[] rowByTime;
+        private final int[] itemIds;
+        private final long[] timestamps;
+        private final int[] locations;
+        private final String[] names;
+
+        private Expected(LogStore.Snapshot snapshot) {
+            this.snapshot = snapshot;
+            size = snapshot.size();
+            rowByTime = new int[size];
+            itemIds = new int[size];
+            timestamps = new long[size];
+            locations = new int[size];
+            names = new String[size];
+            for (int position = 0; position < size; position++) {
+                rowByTime[position] = snapshot.rowByTime(position);
+            }
+            for (int row = 0; row < size; row++) {
+                itemIds[row] = snapshot.itemId(row);
+                timestamps[row] = snapshot.timestamp(row);
+                locations[row] = snapshot.location(row);
+                names[row] = snapshot.name(row);
+            }
+        }
+
+        private void verify() {
+            String version = "snapshot version " + snapshot.version();
+            assertEquals(version, size, snapshot.size());
+            for (int position = 0; position < size; position++) {
+                assertEquals(version, rowByTime[position], snapshot.rowByTime(position));
+            }
+            for (int row = 0; row < size; row++) {
+                assertEquals(version, itemIds[row], snapshot.itemId(row));
+                assertEquals(version, timestamps[row], snapshot.timestamp(row));
+                assertEquals(version, locations[row], snapshot.location(row));
+                assertEquals(version, names[row], snapshot.name(row));
+            }
+        }
+    }
+}